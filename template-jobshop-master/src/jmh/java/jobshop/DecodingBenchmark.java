@@ -0,0 +1,69 @@
+package jobshop;
+
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Decoders and schedule analyses, the innermost calls of the local search solvers. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DecodingBenchmark {
+
+    @Benchmark
+    public Schedule jobNumbersToSchedule(InstanceState state) {
+        return state.jobNumbers.toSchedule();
+    }
+
+    @Benchmark
+    public Schedule resourceOrderToSchedule(InstanceState state) {
+        return state.resourceOrder.toSchedule();
+    }
+
+    @Benchmark
+    public Schedule packedResourceOrderToSchedule(InstanceState state) {
+        return state.packedResourceOrder.toSchedule();
+    }
+
+    @Benchmark
+    public int packedResourceOrderMakespan(InstanceState state) {
+        return state.packedResourceOrder.makespan();
+    }
+
+    @Benchmark
+    public ResourceOrder resourceOrderFromSchedule(InstanceState state) {
+        return new ResourceOrder(state.schedule);
+    }
+
+    @Benchmark
+    public ResourceOrder resourceOrderCopy(InstanceState state) {
+        return state.resourceOrder.copy();
+    }
+
+    @Benchmark
+    public ResourceOrder resourceOrderCopyInto(InstanceState state) {
+        state.resourceOrder.copyInto(state.scratch);
+        return state.scratch;
+    }
+
+    @Benchmark
+    public List<Task> criticalPath(InstanceState state) {
+        return state.schedule.criticalPath();
+    }
+
+    @Benchmark
+    public boolean isValid(InstanceState state) {
+        return state.schedule.isValid();
+    }
+}
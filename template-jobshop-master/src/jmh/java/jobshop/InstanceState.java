@@ -0,0 +1,58 @@
+package jobshop;
+
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.PackedResourceOrder;
+import jobshop.encodings.ResourceOrder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * An instance and a random solution of it, in every representation.
+ * Instances go from 10x10 (ft10) to 100x20 (ta71).
+ */
+@State(Scope.Benchmark)
+public class InstanceState {
+
+    @Param({"ft10", "la21", "ta01", "ta21", "ta41", "ta61", "ta71"})
+    public String instanceName;
+
+    public Instance instance;
+    public JobNumbers jobNumbers;
+    public Schedule schedule;
+    public ResourceOrder resourceOrder;
+    public PackedResourceOrder packedResourceOrder;
+    // preallocated order of the instance, overwritten by the benchmarks
+    public ResourceOrder scratch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        instance = Instance.fromFile(Paths.get("instances", instanceName));
+
+        // random job numbers, always the same for a given instance
+        Random generator = new Random(0);
+        jobNumbers = new JobNumbers(instance);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                jobNumbers.jobs[jobNumbers.nextToSet++] = j;
+            }
+        }
+        for(int i = jobNumbers.jobs.length - 1 ; i > 0 ; i--) {
+            int index = generator.nextInt(i + 1);
+            int tmp = jobNumbers.jobs[index];
+            jobNumbers.jobs[index] = jobNumbers.jobs[i];
+            jobNumbers.jobs[i] = tmp;
+        }
+
+        schedule = jobNumbers.toSchedule();
+        resourceOrder = new ResourceOrder(schedule);
+        packedResourceOrder = new PackedResourceOrder(resourceOrder);
+        scratch = new ResourceOrder(instance);
+    }
+}
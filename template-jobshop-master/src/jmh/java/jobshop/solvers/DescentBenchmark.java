@@ -0,0 +1,89 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.InstanceState;
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Neighbourhood computation and descent steps of the DescentSolver. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DescentBenchmark {
+
+    /**
+     * A random solution and the buffers of a descent, allocated once per trial. Before each step, the solution
+     * is copied into the order the step modifies, with an empty cache, as at the start of a descent.
+     */
+    @State(Scope.Thread)
+    public static class StepState {
+        // N6 is the default neighbourhood of the descent
+        @Param({"N6", "N5"})
+        public Neighbourhood.Type neighbourhoodType;
+
+        ResourceOrder start;
+        ResourceOrder order;
+        int makespan;
+        MakespanCache cache;
+        SolverMetrics metrics;
+        Budget.Checker check;
+        Neighbourhood neighbourhood;
+        int[] estimates;
+        DescentSolver solver;
+
+        @Setup(Level.Trial)
+        public void setup(InstanceState state) {
+            start = new ResourceOrder(state.schedule);
+            makespan = start.updateHeadsAndTails();
+            order = start.copy();
+            neighbourhood = new Neighbourhood(state.instance, neighbourhoodType);
+            estimates = new int[neighbourhood.capacity()];
+            // room for all the neighbours of a step, so that emptying it is cheap
+            cache = new MakespanCache(neighbourhood.capacity());
+            metrics = new SolverMetrics();
+            check = Budget.unlimited().checker();
+            solver = new DescentSolver();
+            solver.setNeighbourhood(neighbourhoodType);
+        }
+
+        /** Puts the random solution back in the order, without allocating anything. */
+        int restore() {
+            start.copyInto(order);
+            cache.clear();
+            return order.updateHeadsAndTails();
+        }
+    }
+
+    @Benchmark
+    public int neighbourhood(StepState step) {
+        return step.neighbourhood.generate(step.start, step.makespan);
+    }
+
+    /** Cost of restoring the solution before each step, included in descentStep. */
+    @Benchmark
+    public int restore(StepState step) {
+        return step.restore();
+    }
+
+    @Benchmark
+    public int descentStep(StepState step) {
+        step.restore();
+        return step.solver.step(step.order, step.makespan, step.neighbourhood, step.estimates, step.cache, step.metrics, step.check);
+    }
+}
@@ -182,6 +182,16 @@ public class BestKnownResult {
         bests.put("ta68", 2784);
         bests.put("ta69", 3071);
         bests.put("ta70", 2995);
+        bests.put("ta71", 5464);
+        bests.put("ta72", 5181);
+        bests.put("ta73", 5568);
+        bests.put("ta74", 5339);
+        bests.put("ta75", 5392);
+        bests.put("ta76", 5342);
+        bests.put("ta77", 5436);
+        bests.put("ta78", 5394);
+        bests.put("ta79", 5358);
+        bests.put("ta80", 5183);
         instances = bests.keySet().toArray(new String[0]);
         Arrays.sort(instances);
     }
@@ -0,0 +1,160 @@
+package jobshop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resources a solver may spend on a run: a deadline, a number of iterations and a number of evaluations,
+ * each of them possibly unlimited, plus a flag through which another thread can cancel the run.
+ *
+ * Solvers do not read the budget in their loops but go through a Checker, one per thread, which counts
+ * iterations and evaluations locally and only reads the clock and updates the shared counters from time to time.
+ * The number of iterations between two checks adapts to the cost of an iteration so that checks happen
+ * about every CHECK_PERIOD_NANOS: the budget is exceeded by at most that much work per thread, and a cancellation
+ * is noticed as quickly. What an iteration and an evaluation are depends on the solver.
+ */
+public class Budget {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // targeted time between two checks of a Checker, and bound on the number of iterations between them
+    private static final long CHECK_PERIOD_NANOS = 1_000_000;
+    private static final int MAX_CHECK_PERIOD = 1 << 16;
+
+    private final long start = System.nanoTime();
+    private final long deadline;
+    // deadline on the clock of System.nanoTime, UNLIMITED if there is none
+    private final long deadlineNanos;
+    private long maxIterations = UNLIMITED;
+    private long maxEvaluations = UNLIMITED;
+
+    // iterations and evaluations of all checkers, as of their last check
+    private final AtomicLong iterations = new AtomicLong();
+    private final AtomicLong evaluations = new AtomicLong();
+    private volatile boolean cancelled = false;
+    // set by the first checker finding the budget exhausted
+    private volatile boolean exhausted = false;
+
+    /** Budget with the given deadline (in milliseconds since the epoch, as System.currentTimeMillis()). */
+    public Budget(long deadline) {
+        this.deadline = deadline;
+        long remaining = deadline - System.currentTimeMillis();
+        this.deadlineNanos = deadline == UNLIMITED || remaining > UNLIMITED / 4_000_000 ? UNLIMITED : start + remaining * 1_000_000;
+    }
+
+    /** Budget without any limit, the run only stopping when cancelled. */
+    public static Budget unlimited() {
+        return new Budget(UNLIMITED);
+    }
+
+    public void setMaxIterations(long maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+    public void setMaxEvaluations(long maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /** Asks the solver to stop as soon as possible. It still returns the best solution found so far. */
+    public void cancel() {
+        cancelled = true;
+    }
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** True once a checker has found the budget exhausted or the run cancelled. Reading it is cheap. */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /** Iterations counted by all checkers, up to their last check. */
+    public long iterations() {
+        return iterations.get();
+    }
+    /** Evaluations counted by all checkers, up to their last check. */
+    public long evaluations() {
+        return evaluations.get();
+    }
+
+    /** New checker of this budget, to be used by a single thread. */
+    public Checker checker() {
+        return new Checker();
+    }
+
+    /** Counts the work of one thread against the budget. This class is not thread safe. */
+    public class Checker {
+        private long pendingIterations = 0;
+        private long pendingEvaluations = 0;
+        // number of iterations between two checks, and number of iterations left before the next one
+        private int period = 1;
+        private int countdown = 1;
+        private long lastCheck = System.nanoTime();
+        private double progress = 0;
+
+        /**
+         * Counts a new iteration and returns true if the budget allows it. Once it returned false,
+         * it keeps on doing so. Refused iterations are not counted: with a single checker, iterations()
+         * stops exactly at the iteration limit.
+         */
+        public boolean next() {
+            pendingIterations++;
+            if (--countdown > 0)
+                return true;
+            if (check())
+                return true;
+            iterations.decrementAndGet();
+            return false;
+        }
+
+        /** Counts evaluations done by the current iteration. */
+        public void evaluated(long count) {
+            pendingEvaluations += count;
+        }
+
+        /**
+         * Checks the budget now, without counting a new iteration. Returns true if it is not exhausted:
+         * no more iterations than the limit have been counted, and fewer evaluations than the limit.
+         */
+        public boolean check() {
+            long its = iterations.addAndGet(pendingIterations);
+            long evals = evaluations.addAndGet(pendingEvaluations);
+            pendingIterations = 0;
+            pendingEvaluations = 0;
+
+            long now = System.nanoTime();
+            if (now - lastCheck < CHECK_PERIOD_NANOS / 2 && period < MAX_CHECK_PERIOD)
+                period *= 2;
+            else if (now - lastCheck > 2 * CHECK_PERIOD_NANOS && period > 1)
+                period /= 2;
+            lastCheck = now;
+            // do not go past an iteration limit between two checks
+            countdown = (int) Math.max(1, Math.min(period, maxIterations - its));
+
+            double time = deadlineNanos == UNLIMITED ? 0 : fraction(now - start, deadlineNanos - start);
+            progress = Math.max(time, Math.max(fraction(its, maxIterations), fraction(evals, maxEvaluations)));
+            if (exhausted || cancelled || now >= deadlineNanos || its > maxIterations || evals >= maxEvaluations) {
+                exhausted = true;
+                countdown = 1;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Fraction of the budget spent at the last check, between 0 and 1: the largest of the fractions of the time,
+         * iterations and evaluations spent. Always 0 for a budget without limit.
+         */
+        public double progress() {
+            return progress;
+        }
+    }
+
+    private static double fraction(long spent, long limit) {
+        if (limit == UNLIMITED)
+            return 0;
+        return limit <= 0 ? 1 : Math.min(1, (double) spent / limit);
+    }
+}
@@ -8,5 +8,9 @@ public abstract class Encoding {
         this.instance = instance;
     }
 
+    /**
+     * Decodes this solution into a schedule. Decoders may keep their buffers in the encoding:
+     * unless stated otherwise, an encoding must not be decoded by several threads at once.
+     */
     public abstract Schedule toSchedule();
 }
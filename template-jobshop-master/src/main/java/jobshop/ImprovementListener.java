@@ -0,0 +1,17 @@
+package jobshop;
+
+/**
+ * Receives the successive best schedules found by a solver during a run, so that a caller can use
+ * the best schedule so far without waiting for the end of the run.
+ *
+ * A listener is never called concurrently, even by parallel solvers, and each schedule is strictly better
+ * than the previous one. It is called from the threads of the solver, which it should not hold up.
+ */
+@FunctionalInterface
+public interface ImprovementListener {
+
+    /** Listener ignoring all improvements. */
+    ImprovementListener NONE = schedule -> {};
+
+    void improved(Schedule schedule);
+}
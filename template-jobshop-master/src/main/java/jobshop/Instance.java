@@ -3,11 +3,15 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class Instance {
 
@@ -20,29 +24,42 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    // durations and machines of all tasks, stored job after job :
+    // the task (j,t) is at index j * numTasks + t
+    final int[] durations;
+    final int[] machines;
+
+    // for each job j and machine m, tasksWithMachine[j * numMachines + m] is the index
+    // of the task of j that is executed on m (-1 if there is none)
+    final int[] tasksWithMachine;
 
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
     public int duration(Task t) {
         return duration(t.job, t.task);
     }
+    /** Duration of the task with the given identifier (job * numTasks + task). */
+    public int duration(int taskId) {
+        return durations[taskId];
+    }
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
     public int machine(Task t) {
         return this.machine(t.job, t.task);
     }
+    /** Machine of the task with the given identifier (job * numTasks + task). */
+    public int machine(int taskId) {
+        return machines[taskId];
+    }
 
     /** among the tasks of the given job, returns the task index that uses the given machine. */
     public int task_with_machine(int job, int wanted_machine) {
-        for(int task = 0 ; task < numTasks ; task++) {
-            if(machine(job, task) == wanted_machine)
-                return task;
-        }
-        throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        int task = tasksWithMachine[job * numMachines + wanted_machine];
+        if(task == -1)
+            throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        return task;
     }
 
     Instance(int numJobs, int numTasks) {
@@ -50,30 +67,168 @@ public class Instance {
         this.numTasks = numTasks;
         this.numMachines = numTasks;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        durations = new int[numJobs * numTasks];
+        machines = new int[numJobs * numTasks];
+        tasksWithMachine = new int[numJobs * numMachines];
+        Arrays.fill(tasksWithMachine, -1);
+    }
+
+    /** Sets the machine and duration of the task (job, task). */
+    void setTask(int job, int task, int machine, int duration) {
+        machines[job * numTasks + task] = machine;
+        durations[job * numTasks + task] = duration;
+        tasksWithMachine[job * numMachines + machine] = task;
     }
 
     /** Parses a instance from a file. */
     public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
-
-        Scanner header = new Scanner(lines.next());
-        int num_jobs = header.nextInt();
-        int num_tasks = header.nextInt();
-        Instance pb = new Instance(num_jobs, num_tasks);
-
-        for(int job = 0 ; job<num_jobs ; job++) {
-            Scanner line = new Scanner(lines.next());
-            for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Tokenizer tokens = new Tokenizer(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+
+            int num_jobs = tokens.nextInt();
+            int num_tasks = tokens.nextInt();
+            tokens.skipLine();
+            Instance pb = new Instance(num_jobs, num_tasks);
+
+            for(int job = 0 ; job<num_jobs ; job++) {
+                for(int task = 0 ; task < num_tasks ; task++) {
+                    int machine = tokens.nextInt();
+                    int duration = tokens.nextInt();
+                    pb.setTask(job, task, machine, duration);
+                }
+                tokens.skipLine();
+            }
+
+            return pb;
+        }
+    }
+
+    /**
+     * Reads the integers of an instance file directly from its bytes, as the former line based parser did:
+     * lines starting with '#' are comments, the values of a line (the header, or a job) must all be on this line,
+     * and the end of a line is ignored once they have been read.
+     */
+    private static final class Tokenizer {
+        private final Path path;
+        private final ByteBuffer buffer;
+        // true if no character other than a line break has been read on the current line
+        private boolean lineStart = true;
+        // true once a value has been read on the current line, which then cannot continue on the next one
+        private boolean valueOnLine = false;
+        // number of the current line, from 1
+        private int line = 1;
+
+        Tokenizer(Path path, ByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        int nextInt() throws IOException {
+            // skip blanks, and comment or blank lines before the first value of a line
+            while(true) {
+                if(!buffer.hasRemaining())
+                    throw new IOException("Unexpected end of instance file "+path);
+                byte c = buffer.get(buffer.position());
+                if(c == '#' && lineStart) {
+                    skipLine();
+                } else if(c == '\n') {
+                    if(valueOnLine)
+                        throw new IOException("Missing values on line "+line+" of instance file "+path);
+                    buffer.get();
+                    lineStart = true;
+                    line++;
+                } else if(c == ' ' || c == '\t' || c == '\r') {
+                    buffer.get();
+                    lineStart = false;
+                } else {
+                    break;
+                }
+            }
+            lineStart = false;
+
+            boolean negative = buffer.get(buffer.position()) == '-';
+            if(negative)
+                buffer.get();
+            int value = 0;
+            int digits = 0;
+            while(buffer.hasRemaining()) {
+                byte c = buffer.get(buffer.position());
+                if(c < '0' || c > '9')
+                    break;
+                value = value * 10 + (c - '0');
+                digits++;
+                buffer.get();
             }
+            if(digits == 0)
+                throw new IOException("Expected an integer on line "+line+" of instance file "+path);
+            valueOnLine = true;
+            return negative ? -value : value;
+        }
+
+        /** Ignores the rest of the current line. */
+        void skipLine() {
+            while(buffer.hasRemaining() && buffer.get() != '\n') { }
+            lineStart = true;
+            valueOnLine = false;
+            line++;
         }
+    }
+
+    // header of the binary instance files : "JSP" followed by the version of the format
+    private static final int BINARY_MAGIC = 0x4a535001;
+
+    /**
+     * Writes the instance in a compact binary format that can be read back by {@link #fromBinaryFile(Path)}:
+     * a header (magic number, number of jobs and tasks) followed by the machines, durations and task index
+     * arrays, as little endian integers.
+     */
+    public void writeBinaryFile(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (3 + machines.length + durations.length + tasksWithMachine.length))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(BINARY_MAGIC).put(numJobs).put(numTasks);
+        ints.put(machines).put(durations).put(tasksWithMachine);
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /** Reads an instance written by {@link #writeBinaryFile(Path)}, the arrays being bulk copied from the mapped file. */
+    public static Instance fromBinaryFile(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+            if(ints.remaining() < 3 || ints.get() != BINARY_MAGIC)
+                throw new IOException("Not a binary instance file: "+path);
+            int num_jobs = ints.get();
+            int num_tasks = ints.get();
+            Instance pb = new Instance(num_jobs, num_tasks);
+            if(ints.remaining() != pb.machines.length + pb.durations.length + pb.tasksWithMachine.length)
+                throw new IOException("Truncated binary instance file: "+path);
+            ints.get(pb.machines).get(pb.durations).get(pb.tasksWithMachine);
+            return pb;
+        }
+    }
+
+    /**
+     * Loads an instance from its text file, going through a binary copy in cacheDir.
+     * The binary copy is (re)created whenever it is missing or older than the text file.
+     */
+    public static Instance fromFileCached(Path path, Path cacheDir) throws IOException {
+        Path cached = cacheDir.resolve(path.getFileName() + ".bin");
+        if(Files.exists(cached) && Files.getLastModifiedTime(cached).compareTo(Files.getLastModifiedTime(path)) >= 0)
+            return fromBinaryFile(cached);
 
+        Instance pb = fromFile(path);
+        Files.createDirectories(cacheDir);
+        // written aside first so that a concurrent reader never sees a partial file
+        Path tmp = Files.createTempFile(cacheDir, path.getFileName().toString(), ".tmp");
+        pb.writeBinaryFile(tmp);
+        Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING);
         return pb;
     }
 }
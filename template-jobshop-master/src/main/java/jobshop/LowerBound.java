@@ -0,0 +1,124 @@
+package jobshop;
+
+/**
+ * Lower bounds of the makespan of an instance, obtained by relaxing all constraints but those of one job
+ * or of one machine. A solution whose makespan equals one of these bounds is optimal.
+ */
+public class LowerBound {
+
+    /** Best (largest) of the bounds below. */
+    public static int of(Instance instance) {
+        return Math.max(jobBound(instance), Math.max(machineBound(instance), jacksonBound(instance)));
+    }
+
+    /** Duration of the longest job. */
+    public static int jobBound(Instance instance) {
+        int bound = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int length = 0;
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                length += instance.duration(j, t);
+            }
+            bound = Math.max(bound, length);
+        }
+        return bound;
+    }
+
+    /** Total duration of the tasks of the most loaded machine. */
+    public static int machineBound(Instance instance) {
+        int[] loads = new int[instance.numMachines];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                loads[instance.machine(j, t)] += instance.duration(j, t);
+            }
+        }
+        int bound = 0;
+        for(int load : loads) {
+            bound = Math.max(bound, load);
+        }
+        return bound;
+    }
+
+    /**
+     * One machine relaxation: on each machine, a task cannot start before the other tasks of its job
+     * (its release date) and must be followed by the rest of its job (its tail). The preemptive version of this
+     * one machine problem is solved exactly by Jackson's rule, and its optimum is a lower bound of the makespan.
+     * This bound is never smaller than the machine bound.
+     */
+    public static int jacksonBound(Instance instance) {
+        int n = instance.numJobs;
+        int[] releases = new int[n];
+        int[] durations = new int[n];
+        int[] tails = new int[n];
+        int[] remaining = new int[n];
+        int bound = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int k = 0;
+            for(int j = 0 ; j < n ; j++) {
+                int task = instance.task_with_machine(j, m);
+                int before = 0;
+                for(int t = 0 ; t < task ; t++) {
+                    before += instance.duration(j, t);
+                }
+                int after = 0;
+                for(int t = task + 1 ; t < instance.numTasks ; t++) {
+                    after += instance.duration(j, t);
+                }
+                releases[k] = before;
+                durations[k] = instance.duration(j, task);
+                tails[k] = after;
+                k++;
+            }
+            bound = Math.max(bound, preemptiveJackson(k, releases, durations, tails, remaining));
+        }
+        return bound;
+    }
+
+    /**
+     * Optimal makespan of the preemptive one machine problem with release dates and tails, given for the
+     * first k tasks of the arrays: at any time, the released task with the largest tail is processed.
+     * The remaining array is used as a buffer and must hold at least k values; nothing is allocated.
+     */
+    public static int preemptiveJackson(int k, int[] releases, int[] durations, int[] tails, int[] remaining) {
+        int time = Integer.MAX_VALUE;
+        int makespan = 0;
+        int done = 0;
+        for(int i = 0 ; i < k ; i++) {
+            remaining[i] = durations[i];
+            time = Math.min(time, releases[i]);
+            if(durations[i] == 0) {
+                // nothing to process, the task completes as soon as it is released
+                done++;
+                makespan = Math.max(makespan, releases[i] + tails[i]);
+            }
+        }
+        while(done < k) {
+            // released task with the largest tail, and next release date
+            int current = -1;
+            int nextRelease = Integer.MAX_VALUE;
+            for(int i = 0 ; i < k ; i++) {
+                if(remaining[i] == 0)
+                    continue;
+                if(releases[i] <= time) {
+                    if(current == -1 || tails[i] > tails[current])
+                        current = i;
+                } else {
+                    nextRelease = Math.min(nextRelease, releases[i]);
+                }
+            }
+            if(current == -1) {
+                time = nextRelease;
+                continue;
+            }
+            // process it until it completes or another task is released
+            int run = nextRelease == Integer.MAX_VALUE ? remaining[current] : Math.min(remaining[current], nextRelease - time);
+            time += run;
+            remaining[current] -= run;
+            if(remaining[current] == 0) {
+                done++;
+                makespan = Math.max(makespan, time + tails[current]);
+            }
+        }
+        return makespan;
+    }
+}
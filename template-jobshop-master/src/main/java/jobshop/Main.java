@@ -1,12 +1,19 @@
 package jobshop;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 import jobshop.solvers.*;
@@ -18,72 +25,56 @@ import net.sourceforge.argparse4j.inf.Namespace;
 
 public class Main {
 
-    /** All solvers available in this program */
-    private static HashMap<String, Solver> solvers;
-    static {
-        solvers = new HashMap<>();
-        solvers.put("basic", new BasicSolver());
-        solvers.put("random", new RandomSolver());
-
-
-        /** GloutonSolver for each priority*/
-        GloutonSolver SPT = new GloutonSolver();
-        SPT.setPriority("SPT");
-        solvers.put("SPT",SPT);
-
-        GloutonSolver LPT = new GloutonSolver();
-        LPT.setPriority("LPT");
-        solvers.put("LPT",LPT);
-
-        GloutonSolver SRPT = new GloutonSolver();
-        SRPT.setPriority("SRPT");
-        solvers.put("SRPT",SRPT);
-
-        GloutonSolver LRPT = new GloutonSolver();
-        LRPT.setPriority("LRPT");
-        solvers.put("LRPT",LRPT);
-
-        GloutonSolver EST_SPT = new GloutonSolver();
-        EST_SPT.setPriority("EST_SPT");
-        solvers.put("EST_SPT",EST_SPT);
-
-        GloutonSolver EST_LRPT = new GloutonSolver();
-        EST_LRPT.setPriority("EST_LRPT");
-        solvers.put("EST_LRPT",EST_LRPT);
-
-
-        /** DescentSoler for each priority*/
-        DescentSolver SPT_Descent = new DescentSolver();
-        SPT_Descent.setGloutonPriority("SPT");
-        solvers.put("SPT_Descent",SPT_Descent);
-
-        DescentSolver LPT_Descent = new DescentSolver();
-        LPT_Descent.setGloutonPriority("LPT");
-        solvers.put("LPT_Descent",LPT_Descent);
-
-        DescentSolver SRPT_Descent = new DescentSolver();
-        SRPT_Descent.setGloutonPriority("SRPT");
-        solvers.put("SRPT_Descent",SRPT_Descent);
-
-        DescentSolver LRPT_Descent = new DescentSolver();
-        LRPT_Descent.setGloutonPriority("LRPT");
-        solvers.put("LRPT_Descent",LRPT_Descent);
-
-        DescentSolver EST_SPT_Descent = new DescentSolver();
-        EST_SPT_Descent.setGloutonPriority("EST_SPT");
-        solvers.put("EST_SPT_Descent",EST_SPT_Descent);
-
+    /** All solvers available in this program, a new solver being created for each run */
+    private static final SolverRegistry solvers = SolverRegistry.standard();
+
+    /** Outcome of a single run of a solver on an instance. */
+    static class Run {
+        final Result result;
+        // wall-clock time of the run and CPU time of the process during the run, in milliseconds,
+        // the latter being -1 if the JVM does not measure it
+        final long runtime;
+        final long cpuTime;
+
+        Run(Result result, long runtime, long cpuTime) {
+            this.result = result;
+            this.runtime = runtime;
+            this.cpuTime = cpuTime;
+        }
+    }
 
-        DescentSolver EST_LRPT_Descent = new DescentSolver();
-        EST_LRPT_Descent.setGloutonPriority("EST_LRPT");
-        solvers.put("EST_LRPT_Descent",EST_LRPT_Descent);
+    /**
+     * Solves the instance with the given solver on the current thread, with a deadline starting now.
+     * The CPU time is the one of the whole process, so that the threads started by the solver are accounted for.
+     * It is only the one of the run when no other run is done at the same time.
+     */
+    static Run run(Solver solver, Instance instance, long solveTimeMs) {
+        long cpuStart = processCpuTime();
+        long start = System.currentTimeMillis();
+        long deadline = start + solveTimeMs;
+        Result result = solver.solve(instance, deadline);
+        long runtime = System.currentTimeMillis() - start;
+        long cpuEnd = processCpuTime();
+        long cpuTime = cpuStart < 0 || cpuEnd < 0 ? -1 : (cpuEnd - cpuStart) / 1000000;
+        return new Run(result, runtime, cpuTime);
+    }
 
-        TabooSolver EST_LRPT_Taboo = new TabooSolver();
-        EST_LRPT_Taboo.setGloutonPrio("EST_LRPT");
-        solvers.put("EST_LRPT_Taboo",EST_LRPT_Taboo);
+    /** CPU time of all the threads of the process in nanoseconds, or -1 if the JVM does not measure it. */
+    static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean)
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        return -1;
+    }
 
 
-        // add new solvers here
+    /** Writes the convergence trace (csv) and the counters (json) of a run in the trace directory. */
+    static void writeTrace(Path traceDir, String instanceName, String solverName, SolverMetrics metrics) throws IOException {
+        Files.createDirectories(traceDir);
+        // solver specs may contain characters that are not allowed in file names
+        String base = instanceName + "_" + solverName.replaceAll("[^A-Za-z0-9_=+.-]", "_");
+        Files.write(traceDir.resolve(base + ".csv"), metrics.toCsv().getBytes(StandardCharsets.UTF_8));
+        Files.write(traceDir.resolve(base + ".json"), metrics.toJson().getBytes(StandardCharsets.UTF_8));
     }
 
 
@@ -96,10 +87,18 @@ public class Main {
                 .setDefault(1L)
                 .type(Long.class)
                 .help("Solver timeout in seconds for each instance");
+        parser.addArgument("--threads")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of (instance, solver) pairs solved concurrently");
+        parser.addArgument("--cache")
+                .help("Directory in which binary copies of the instances are kept to speed up their loading");
+        parser.addArgument("--trace")
+                .help("Directory in which the convergence trace and counters of each run are written");
         parser.addArgument("--solver")
                 .nargs("+")
                 .required(true)
-                .help("Solver(s) to use (space separated if more than one)");
+                .help("Solver(s) to use (space separated if more than one), each given by its name optionally followed by parameters, as in descent:rule=EST_LRPT,threads=8");
 
         parser.addArgument("--instance")
                 .nargs("+")
@@ -120,10 +119,12 @@ public class Main {
 
         List<String> solversToTest = ns.getList("solver");
         for(String solverName : solversToTest) {
-            if(!solvers.containsKey(solverName)) {
-                System.err.println("ERROR: Solver \"" + solverName + "\" is not avalaible.");
-                System.err.println("       Available solvers: " + solvers.keySet().toString());
-                System.err.println("       You can provide your own solvers by adding them to the `Main.solvers` HashMap.");
+            try {
+                solvers.create(solverName);
+            } catch (IllegalArgumentException e) {
+                System.err.println("ERROR: Solver \"" + solverName + "\" is not avalaible: " + e.getMessage());
+                System.err.println("       Available solvers: " + solvers.names().toString());
+                System.err.println("       You can provide your own solvers by registering them in `SolverRegistry.standard()`.");
                 System.exit(1);
             }
         }
@@ -139,64 +140,101 @@ public class Main {
             instances.addAll(matches);
         }
 
+        int numThreads = ns.getInt("threads");
+        if(numThreads < 1) {
+            System.err.println("ERROR: the number of threads must be positive.");
+            System.exit(1);
+        }
+
+        String cacheDir = ns.getString("cache");
+        String traceDir = ns.getString("trace");
+
         float[] runtimes = new float[solversToTest.size()];
+        float[] cpuTimes = new float[solversToTest.size()];
+        // the CPU time of the process is only the one of a run if runs are not concurrent
+        boolean[] cpuKnown = new boolean[solversToTest.size()];
+        Arrays.fill(cpuKnown, numThreads == 1);
         float[] distances = new float[solversToTest.size()];
+        float[] gaps = new float[solversToTest.size()];
 
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
         try {
-            output.print(  "                         ");
+            // submit all runs at once, each of them starting its own deadline when it is picked up by a worker
+            List<Instance> loaded = new ArrayList<>();
+            List<List<Future<Run>>> runs = new ArrayList<>();
+            for(String instanceName : instances) {
+                Path path = Paths.get("instances/", instanceName);
+                Instance instance = cacheDir == null ? Instance.fromFile(path) : Instance.fromFileCached(path, Paths.get(cacheDir));
+                loaded.add(instance);
+
+                List<Future<Run>> instanceRuns = new ArrayList<>();
+                for(String solverName : solversToTest) {
+                    // each run gets its own solver, so that concurrent runs share no state
+                    instanceRuns.add(executor.submit(() -> run(solvers.create(solverName), instance, solveTimeMs)));
+                }
+                runs.add(instanceRuns);
+            }
+
+            output.print(  "                               ");
             for(String s : solversToTest)
-                output.printf("%-30s", s);
+                output.printf("%-44s", s);
             output.println();
-            output.print("instance size  best      ");
+            output.print("instance size  best    lb      ");
             for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+                output.print("runtime proccpu makespan ecart   gap        ");
             }
             output.println();
 
 
-            for(String instanceName : instances) {
+            // results are printed in order, as soon as all runs of an instance are done
+            for(int instanceId = 0 ; instanceId < instances.size() ; instanceId++) {
+                String instanceName = instances.get(instanceId);
+                Instance instance = loaded.get(instanceId);
                 int bestKnown = BestKnownResult.of(instanceName);
+                int lowerBound = LowerBound.of(instance);
 
-
-                Path path = Paths.get("instances/", instanceName);
-                Instance instance = Instance.fromFile(path);
-
-                output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
+                output.printf("%-8s %-5s %4d %5d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown, lowerBound);
 
                 for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                    String solverName = solversToTest.get(solverId);
-                    Solver solver = solvers.get(solverName);
-                    long start = System.currentTimeMillis();
-                    long deadline = System.currentTimeMillis() + solveTimeMs;
-                    Result result = solver.solve(instance, deadline);
-                    long runtime = System.currentTimeMillis() - start;
-
-                    if(!result.schedule.isValid()) {
-                        System.err.println("ERROR: solver returned an invalid schedule");
+                    Run run = runs.get(instanceId).get(solverId).get();
+                    Result result = run.result;
+
+                    ValidationReport report = result.schedule.validate();
+                    if(!report.isValid()) {
+                        System.err.println("ERROR: solver returned an invalid schedule, " + report);
                         System.exit(1);
                     }
 
                     assert result.schedule.isValid();
                     int makespan = result.schedule.makespan();
                     float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
-                    runtimes[solverId] += (float) runtime / (float) instances.size();
+                    float gap = 100f * (makespan - lowerBound) / (float) lowerBound;
+                    runtimes[solverId] += (float) run.runtime / (float) instances.size();
+                    cpuTimes[solverId] += (float) run.cpuTime / (float) instances.size();
+                    cpuKnown[solverId] &= run.cpuTime >= 0;
                     distances[solverId] += dist / (float) instances.size();
+                    gaps[solverId] += gap / (float) instances.size();
 
-                    output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
+                    String cpu = numThreads == 1 && run.cpuTime >= 0 ? Long.toString(run.cpuTime) : "-";
+                    output.printf("%7d %7s %8s %5.1f %5.1f        ", run.runtime, cpu, makespan, dist, gap);
                     output.flush();
+
+                    if(traceDir != null && result.metrics != null)
+                        writeTrace(Paths.get(traceDir), instanceName, solversToTest.get(solverId), result.metrics);
                 }
                 output.println();
 
             }
 
 
-            output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
+            output.printf("%-8s %-5s %4s %5s      ", "AVG", "-", "-", "-");
             for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                output.printf("%7.1f %8s %5.1f        ", runtimes[solverId], "-", distances[solverId]);
+                String cpu = cpuKnown[solverId] ? String.format("%.1f", cpuTimes[solverId]) : "-";
+                output.printf("%7.1f %7s %8s %5.1f %5.1f        ", runtimes[solverId], cpu, "-", distances[solverId], gaps[solverId]);
             }
+            output.println();
 
-
-
+            executor.shutdown();
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
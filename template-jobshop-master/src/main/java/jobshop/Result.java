@@ -5,18 +5,30 @@ import java.util.Optional;
 public class Result {
 
     public Result(Instance instance, Schedule schedule, ExitCause cause) {
+        this(instance, schedule, cause, null);
+    }
+
+    public Result(Instance instance, Schedule schedule, ExitCause cause, SolverMetrics metrics) {
         this.instance = instance;
         this.schedule = schedule;
         this.cause = cause;
+        this.metrics = metrics;
     }
 
     public enum ExitCause {
-        Timeout, ProvedOptimal, Blocked
+        /** The budget, or a limit of the solver on its own iterations (maxIter, maxEpochs...), has been spent */
+        Timeout,
+        /** The solution is optimal: its makespan is the lower bound of the instance */
+        ProvedOptimal,
+        /** The solver cannot go further, in a local optimum or at the end of a construction, before its budget is spent */
+        Blocked
     }
 
     public final Instance instance;
     public final Schedule schedule;
     public final ExitCause cause;
+    // counters and convergence trace of the run, null if the solver does not collect them
+    public final SolverMetrics metrics;
 
 
 }
@@ -4,20 +4,32 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.util.*;
-import java.util.stream.IntStream;
 
 public class Schedule {
     public final Instance pb;
     // start times of each job and task
     // times[j][i] is the start time of task (j,i) : i^th task of the j^th job
     final int[][] times;
+    // for each task (j * numTasks + t), the task whose end time sets its start time : its predecessor
+    // on its job or on its machine, -1 if it starts at 0. null if the schedule was not built by a decoder.
+    final int[] criticalPredecessors;
 
     public Schedule(Instance pb, int[][] times) {
+        this(pb, times, null);
+    }
+
+    /**
+     * Creates a schedule whose critical predecessors have been recorded while decoding,
+     * so that its critical path can be read back without searching for them.
+     * The predecessors array is not copied and must not be modified afterwards.
+     */
+    public Schedule(Instance pb, int[][] times, int[] criticalPredecessors) {
         this.pb = pb;
         this.times = new int[pb.numJobs][];
         for(int j = 0 ; j < pb.numJobs ; j++) {
             this.times[j] = Arrays.copyOf(times[j], pb.numTasks);
         }
+        this.criticalPredecessors = criticalPredecessors;
     }
 
     public int startTime(int job, int task) {
@@ -26,33 +38,73 @@ public class Schedule {
 
     /** Returns true if this schedule is valid (no constraint is violated) */
     public boolean isValid() {
+        return check(null);
+    }
+
+    /**
+     * Returns all the constraints violated by this schedule: every task starting before 0, every pair of
+     * consecutive tasks of a job and every pair of overlapping tasks of a machine. The list of violations
+     * is only built for an invalid schedule.
+     */
+    public ValidationReport validate() {
+        if(isValid())
+            return ValidationReport.VALID;
+        List<ValidationReport.Violation> violations = new ArrayList<>();
+        check(violations);
+        return new ValidationReport(violations);
+    }
+
+    /**
+     * Checks all constraints of the schedule in O(m.n.log(n) + v) for v violations, the tasks of each machine
+     * being sorted by start time: a task only has to be compared with the following ones that start before its end,
+     * and for a valid schedule with the next one only.
+     * Violations are added to the given list, or the check stops at the first one if the list is null.
+     * Returns true if no constraint is violated.
+     */
+    private boolean check(List<ValidationReport.Violation> violations) {
+        boolean valid = true;
         for(int j = 0 ; j<pb.numJobs ; j++) {
-            for(int t = 1 ; t<pb.numTasks ; t++) {
-                if(startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t))
-                    return false;
-            }
             for(int t = 0 ; t<pb.numTasks ; t++) {
-                if(startTime(j, t) < 0)
-                    return false;
+                if(startTime(j, t) < 0) {
+                    if(violations == null)
+                        return false;
+                    valid = false;
+                    violations.add(new ValidationReport.Violation(ValidationReport.Kind.NEGATIVE_START, new Task(j, t), null));
+                }
+                if(t > 0 && startTime(j, t-1) + pb.duration(j, t-1) > startTime(j, t)) {
+                    if(violations == null)
+                        return false;
+                    valid = false;
+                    violations.add(new ValidationReport.Violation(ValidationReport.Kind.JOB_PRECEDENCE, new Task(j, t-1), new Task(j, t)));
+                }
             }
         }
 
+        // start time and job of each task of a machine, packed so that sorting them orders the tasks by start time
+        long[] tasks = new long[pb.numJobs];
         for (int machine = 0 ; machine < pb.numMachines ; machine++) {
-            for(int j1=0 ; j1<pb.numJobs ; j1++) {
+            for(int j = 0 ; j<pb.numJobs ; j++) {
+                tasks[j] = ((long) startTime(j, pb.task_with_machine(j, machine)) << 32) | j;
+            }
+            Arrays.sort(tasks);
+            for(int i = 0 ; i < pb.numJobs - 1 ; i++) {
+                int j1 = (int) tasks[i];
                 int t1 = pb.task_with_machine(j1, machine);
-                for(int j2=j1+1 ; j2<pb.numJobs ; j2++) {
+                int end = startTime(j1, t1) + pb.duration(j1, t1);
+                for(int k = i + 1 ; k < pb.numJobs ; k++) {
+                    int j2 = (int) tasks[k];
                     int t2 = pb.task_with_machine(j2, machine);
-
-                    boolean t1_first = startTime(j1, t1) + pb.duration(j1, t1) <= startTime(j2, t2);
-                    boolean t2_first = startTime(j2, t2) + pb.duration(j2, t2) <= startTime(j1, t1);
-
-                    if(!t1_first && !t2_first)
+                    if(end <= startTime(j2, t2))
+                        break;
+                    if(violations == null)
                         return false;
+                    valid = false;
+                    violations.add(new ValidationReport.Violation(ValidationReport.Kind.MACHINE_OVERLAP, new Task(j1, t1), new Task(j2, t2)));
                 }
             }
         }
 
-        return true;
+        return valid;
     }
 
     public int makespan() {
@@ -86,50 +138,95 @@ public class Schedule {
     }
 
     public List<Task> criticalPath() {
-        // select task with greatest end time
-        Task ldd = IntStream.range(0, pb.numJobs)
-                .mapToObj(j -> new Task(j, pb.numTasks-1))
-                .max(Comparator.comparing(this::endTime))
-                .get();
-        assert endTime(ldd) == makespan();
-
-        // list that will contain the critical path.
-        // we construct it from the end, starting with the
-        // task that finishes last
-        LinkedList<Task> path = new LinkedList<>();
-        path.add(0,ldd);
-
-        // keep adding tasks to the path until the first task in the path
-        // starts a time 0
-        while(startTime(path.getFirst()) != 0) {
-            Task cur = path.getFirst();
-            int machine = pb.machine(cur.job, cur.task);
-
-            // will contain the task that was delaying the start
-            // of our current task
-            Optional<Task> latestPredecessor = Optional.empty();
-
-            if(cur.task > 0) {
-                // our current task has a predecessor on the job
-                Task predOnJob = new Task(cur.job, cur.task -1);
-
-                // if it was the delaying task, save it to predecessor
-                if(endTime(predOnJob) == startTime(cur))
-                    latestPredecessor = Optional.of(predOnJob);
-            }
-            if(!latestPredecessor.isPresent()) {
-                // no latest predecessor found yet, look among tasks executing on the same machine
-                latestPredecessor = IntStream.range(0, pb.numJobs)
-                        .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine)))
-                        .filter(t -> endTime(t) == startTime(cur))
-                        .findFirst();
-            }
-            // at this point we should have identified a latest predecessor, either on the job or on the machine
-            assert latestPredecessor.isPresent() && endTime(latestPredecessor.get()) == startTime(cur);
-            // insert predecessor at the beginning of the path
-            path.add(0, latestPredecessor.get());
+        int[] ids = criticalPathIds();
+        List<Task> path = new ArrayList<>(ids.length);
+        for(int id : ids) {
+            path.add(new Task(id / pb.numTasks, id % pb.numTasks));
         }
         assert isCriticalPath(path);
         return path;
     }
+
+    /**
+     * Returns a critical path as an array of task identifiers (job * numTasks + task),
+     * from the task starting at 0 to the task ending at the makespan.
+     * This is O(path length) when the critical predecessors have been recorded by the decoder.
+     */
+    public int[] criticalPathIds() {
+        // select task with greatest end time
+        int last = -1;
+        for(int j = 0 ; j < pb.numJobs ; j++) {
+            int id = j * pb.numTasks + pb.numTasks - 1;
+            if(last == -1 || endTime(id) > endTime(last))
+                last = id;
+        }
+        assert endTime(last) == makespan();
+
+        // go back to the first task, once to measure the path and once to fill it from the end
+        int length = 0;
+        for(int id = last ; id != -1 ; id = criticalPredecessor(id)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for(int id = last ; id != -1 ; id = criticalPredecessor(id)) {
+            path[--length] = id;
+        }
+        return path;
+    }
+
+    /**
+     * Blocks of a critical path : maximal sequences of at least two consecutive tasks of the path that
+     * are executed on the same machine. For each block, returns the indices in the path of its first and
+     * last tasks : [first0, last0, first1, last1, ...].
+     */
+    public int[] criticalBlocks(int[] path) {
+        int count = 0;
+        for(int i = 0 ; i < path.length - 1 ; i++) {
+            // a block starts where two consecutive tasks share their machine, but not the previous ones
+            if(sameMachine(path[i], path[i+1]) && (i == 0 || !sameMachine(path[i-1], path[i])))
+                count++;
+        }
+        int[] blocks = new int[2 * count];
+        int b = 0;
+        for(int i = 0 ; i < path.length - 1 ; i++) {
+            if(sameMachine(path[i], path[i+1])) {
+                if(i == 0 || !sameMachine(path[i-1], path[i]))
+                    blocks[b++] = i;
+                if(i + 2 == path.length || !sameMachine(path[i+1], path[i+2]))
+                    blocks[b++] = i + 1;
+            }
+        }
+        return blocks;
+    }
+
+    private boolean sameMachine(int id1, int id2) {
+        return pb.machine(id1) == pb.machine(id2);
+    }
+
+    private int endTime(int id) {
+        return startTime(id / pb.numTasks, id % pb.numTasks) + pb.duration(id);
+    }
+
+    /** Task whose end time sets the start time of the given one, -1 if it starts at 0. */
+    private int criticalPredecessor(int id) {
+        if(criticalPredecessors != null)
+            return criticalPredecessors[id];
+
+        int job = id / pb.numTasks;
+        int task = id % pb.numTasks;
+        int start = startTime(job, task);
+        if(start == 0)
+            return -1;
+        // our current task has a predecessor on the job, and it was the delaying task
+        if(task > 0 && endTime(id - 1) == start)
+            return id - 1;
+        // look among tasks executing on the same machine
+        int machine = pb.machine(id);
+        for(int j = 0 ; j < pb.numJobs ; j++) {
+            int other = j * pb.numTasks + pb.task_with_machine(j, machine);
+            if(endTime(other) == start)
+                return other;
+        }
+        throw new RuntimeException("No task delaying the start of task ("+job+", "+task+")");
+    }
 }
@@ -2,6 +2,16 @@ package jobshop;
 
 public interface Solver {
 
-    Result solve(Instance instance, long deadline);
+    /**
+     * Solves the instance within the given budget, which the solver checks regularly: the run stops soon after the
+     * budget is exhausted or cancelled, with the best schedule found so far. Each new best schedule is also passed
+     * to the listener as soon as it is found.
+     */
+    Result solve(Instance instance, Budget budget, ImprovementListener listener);
+
+    /** Solves the instance until the deadline (in milliseconds, as given by System.currentTimeMillis()). */
+    default Result solve(Instance instance, long deadline) {
+        return solve(instance, new Budget(deadline), ImprovementListener.NONE);
+    }
 
 }
@@ -0,0 +1,115 @@
+package jobshop;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counters and convergence trace of a single run of a solver.
+ *
+ * Counters are LongAdders, which any thread of the solver can increment without contention, so that they can be
+ * updated in the hot loops of the solvers. Improvements of the best makespan are recorded with the time elapsed
+ * since the creation of the metrics; they are rare and recorded under a lock.
+ */
+public class SolverMetrics {
+
+    /** Number of complete evaluations of a solution (decoding into a schedule or computing its heads and tails). */
+    public final LongAdder decodes = new LongAdder();
+    /** Number of neighbours evaluated, exactly or with an estimate. */
+    public final LongAdder neighbours = new LongAdder();
+    /** Number of moves applied to the current solution. */
+    public final LongAdder moves = new LongAdder();
+    /** Number of times a search was started again from a new solution. */
+    public final LongAdder restarts = new LongAdder();
+
+    private final long start = System.nanoTime();
+    private long end = -1;
+
+    // improvement events: time since start (in nanoseconds) and makespan, in increasing time order
+    private long[] times = new long[16];
+    private int[] makespans = new int[16];
+    private int numImprovements = 0;
+
+    /** Records a new makespan, if it is better than all the previous ones. Returns true if it was. */
+    public synchronized boolean improvement(int makespan) {
+        if(numImprovements > 0 && makespan >= makespans[numImprovements - 1])
+            return false;
+        if(numImprovements == times.length) {
+            times = Arrays.copyOf(times, 2 * numImprovements);
+            makespans = Arrays.copyOf(makespans, 2 * numImprovements);
+        }
+        times[numImprovements] = System.nanoTime() - start;
+        makespans[numImprovements] = makespan;
+        numImprovements++;
+        return true;
+    }
+
+    /**
+     * Records a new makespan and, if it is better than all the previous ones, passes the schedule (only built then)
+     * to the listener. Threads sharing these metrics thus call the listener one at a time, with decreasing makespans.
+     */
+    public synchronized void improvement(int makespan, Supplier<Schedule> schedule, ImprovementListener listener) {
+        if(improvement(makespan) && listener != ImprovementListener.NONE)
+            listener.improved(schedule.get());
+    }
+
+    /** Marks the end of the run. */
+    public synchronized void stop() {
+        if(end == -1)
+            end = System.nanoTime();
+    }
+
+    /** Time elapsed between the creation of these metrics and the end of the run (or now), in milliseconds. */
+    public synchronized double elapsedMillis() {
+        return ((end == -1 ? System.nanoTime() : end) - start) / 1e6;
+    }
+
+    /** Average number of complete evaluations and neighbour evaluations per second. */
+    public double evaluationsPerSecond() {
+        double seconds = elapsedMillis() / 1000;
+        return seconds == 0 ? 0 : (decodes.sum() + neighbours.sum()) / seconds;
+    }
+
+    public synchronized int numImprovements() {
+        return numImprovements;
+    }
+
+    /** Time of the i^th improvement, in milliseconds since the start of the run. */
+    public synchronized double improvementTime(int i) {
+        return times[i] / 1e6;
+    }
+
+    /** Makespan reached by the i^th improvement. */
+    public synchronized int improvementMakespan(int i) {
+        return makespans[i];
+    }
+
+    /** Convergence trace: one line per improvement, with its time in milliseconds and its makespan. */
+    public synchronized String toCsv() {
+        StringBuilder s = new StringBuilder("time_ms,makespan\n");
+        for(int i = 0 ; i < numImprovements ; i++) {
+            s.append(String.format(Locale.ROOT, "%.3f,%d\n", times[i] / 1e6, makespans[i]));
+        }
+        return s.toString();
+    }
+
+    /** Counters and convergence trace, as a JSON object. */
+    public synchronized String toJson() {
+        StringBuilder s = new StringBuilder("{");
+        s.append("\"elapsed_ms\": ").append(String.format(Locale.ROOT, "%.3f", elapsedMillis()));
+        s.append(", \"decodes\": ").append(decodes.sum());
+        s.append(", \"neighbours\": ").append(neighbours.sum());
+        s.append(", \"moves\": ").append(moves.sum());
+        s.append(", \"restarts\": ").append(restarts.sum());
+        s.append(", \"evaluations_per_second\": ").append(String.format(Locale.ROOT, "%.1f", evaluationsPerSecond()));
+        s.append(", \"improvements\": [");
+        for(int i = 0 ; i < numImprovements ; i++) {
+            if(i > 0)
+                s.append(", ");
+            s.append(String.format(Locale.ROOT, "{\"time_ms\": %.3f, \"makespan\": %d}", times[i] / 1e6, makespans[i]));
+        }
+        s.append("]}");
+        return s.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package jobshop;
+
+import jobshop.encodings.Task;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Result of the validation of a schedule : all the constraints it violates. */
+public class ValidationReport {
+
+    public enum Kind {
+        /** A task starts before time 0 */
+        NEGATIVE_START,
+        /** A task starts before the end of the previous task of its job */
+        JOB_PRECEDENCE,
+        /** Two tasks are executed at the same time on the same machine */
+        MACHINE_OVERLAP
+    }
+
+    /** A violated constraint, on one task (task2 is then null) or between two tasks. */
+    public static final class Violation {
+        public final Kind kind;
+        public final Task task1;
+        public final Task task2;
+
+        Violation(Kind kind, Task task1, Task task2) {
+            this.kind = kind;
+            this.task1 = task1;
+            this.task2 = task2;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + task1 + (task2 == null ? "" : " " + task2);
+        }
+    }
+
+    /** Report of all valid schedules. */
+    static final ValidationReport VALID = new ValidationReport(Collections.emptyList());
+
+    public final List<Violation> violations;
+
+    ValidationReport(List<Violation> violations) {
+        this.violations = Collections.unmodifiableList(violations);
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "valid" : violations.size() + " violation(s): " + violations;
+    }
+}
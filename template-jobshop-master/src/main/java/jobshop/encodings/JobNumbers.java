@@ -18,6 +18,11 @@ public class JobNumbers extends Encoding {
      * element of `jobs` that has not been set yet. */
     public int nextToSet = 0;
 
+    // buffers of makespan(), allocated on first use
+    private int[] jobEndTimes;
+    private int[] machineEndTimes;
+    private int[] nextTasks;
+
     public JobNumbers(Instance instance) {
         super(instance);
 
@@ -55,26 +60,69 @@ public class JobNumbers extends Encoding {
         // time at which each machine is going to be freed
         int[] nextFreeTimeResource = new int[instance.numMachines];
 
+        // last task (j * numTasks + t) scheduled on each machine
+        int[] lastOnResource = new int[instance.numMachines];
+        Arrays.fill(lastOnResource, -1);
+
         // for each job, the first task that has not yet been scheduled
         int[] nextTask = new int[instance.numJobs];
 
         // for each task, its start time
         int[][] startTimes = new int[instance.numJobs][instance.numTasks];
 
+        // for each task, the predecessor (on the job or on the machine) that sets its start time
+        int[] criticalPredecessors = new int[instance.numJobs * instance.numTasks];
+
         // compute the earliest start time for every task of every job
         for(int job : jobs) {
             int task = nextTask[job];
+            int id = job * instance.numTasks + task;
             int machine = instance.machine(job, task);
             // earliest start time for this task
             int est = task == 0 ? 0 : startTimes[job][task-1] + instance.duration(job, task-1);
-            est = Math.max(est, nextFreeTimeResource[machine]);
+            int critical = task == 0 ? -1 : id - 1;
+            if(nextFreeTimeResource[machine] > est) {
+                est = nextFreeTimeResource[machine];
+                critical = lastOnResource[machine];
+            }
 
             startTimes[job][task] = est;
+            criticalPredecessors[id] = est == 0 ? -1 : critical;
             nextFreeTimeResource[machine] = est + instance.duration(job, task);
+            lastOnResource[machine] = id;
             nextTask[job] = task + 1;
         }
 
-        return new Schedule(instance, startTimes);
+        return new Schedule(instance, startTimes, criticalPredecessors);
+    }
+
+    /**
+     * Makespan of the schedule represented by these (complete) job numbers.
+     * Equivalent to toSchedule().makespan() but does not allocate anything once the buffers exist.
+     */
+    public int makespan() {
+        if(jobEndTimes == null) {
+            jobEndTimes = new int[instance.numJobs];
+            machineEndTimes = new int[instance.numMachines];
+            nextTasks = new int[instance.numJobs];
+        }
+        Arrays.fill(jobEndTimes, 0);
+        Arrays.fill(machineEndTimes, 0);
+        Arrays.fill(nextTasks, 0);
+
+        for(int job : jobs) {
+            int task = nextTasks[job]++;
+            int machine = instance.machine(job, task);
+            int end = Math.max(jobEndTimes[job], machineEndTimes[machine]) + instance.duration(job, task);
+            jobEndTimes[job] = end;
+            machineEndTimes[machine] = end;
+        }
+
+        int makespan = 0;
+        for(int end : jobEndTimes) {
+            makespan = Math.max(makespan, end);
+        }
+        return makespan;
     }
 
     @Override
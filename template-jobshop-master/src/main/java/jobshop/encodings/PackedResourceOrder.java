@@ -0,0 +1,264 @@
+package jobshop.encodings;
+
+import jobshop.Encoding;
+import jobshop.Schedule;
+
+import java.util.Arrays;
+
+/**
+ * Resource order stored in flat primitive arrays.
+ *
+ * The task (j,t) is identified by the integer j * numTasks + t. For each machine m,
+ * order[m * numJobs + i] is the identifier of the i^th task executed on m.
+ * The position of each task on its machine is kept up to date so that swapping two tasks
+ * or finding where a task is executed are constant time operations.
+ *
+ * It is decoded directly from these arrays, the neighbours of a task on its machine being found with its
+ * position: decoding allocates nothing but the returned schedule once the buffers of the first decode exist.
+ * Like other encodings, an order must not be decoded by several threads at once.
+ */
+public class PackedResourceOrder extends Encoding {
+
+    /** Identifiers of the tasks executed on each machine, machine after machine. */
+    public final int[] order;
+
+    // for each task identifier, index of the task on its machine
+    private final int[] positions;
+
+    // buffers of the decoder, allocated on the first decode
+    // number of unscheduled predecessors of each task
+    private int[] inDegree;
+    // all tasks, in a topological order of the (job and machine) precedence graph
+    private int[] topologicalOrder;
+    // earliest start time of each task
+    private int[] heads;
+
+    /** Creates a resource order from a schedule, tasks being ordered by start time on each machine. */
+    public PackedResourceOrder(Schedule schedule) {
+        super(schedule.pb);
+        this.order = new int[instance.numMachines * instance.numJobs];
+        this.positions = new int[instance.numJobs * instance.numTasks];
+
+        // start time and job of each task on a machine, packed in a long so that
+        // sorting them orders tasks by start time then by job number
+        long[] keys = new long[instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                int t = instance.task_with_machine(j, m);
+                keys[j] = ((long) schedule.startTime(j, t) << 32) | j;
+            }
+            Arrays.sort(keys);
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int j = (int) keys[i];
+                set(m, i, taskId(j, instance.task_with_machine(j, m)));
+            }
+        }
+    }
+
+    /** Creates the packed version of the given (complete) resource order. */
+    public PackedResourceOrder(ResourceOrder resourceOrder) {
+        super(resourceOrder.instance);
+        this.order = new int[instance.numMachines * instance.numJobs];
+        this.positions = new int[instance.numJobs * instance.numTasks];
+
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                Task task = resourceOrder.tasksByMachine[m][i];
+                set(m, i, taskId(task.job, task.task));
+            }
+        }
+    }
+
+    /** Creates the resource order in which tasks appear on each machine in the order of the job numbers. */
+    public PackedResourceOrder(JobNumbers jobNumbers) {
+        super(jobNumbers.instance);
+        this.order = new int[instance.numMachines * instance.numJobs];
+        this.positions = new int[instance.numJobs * instance.numTasks];
+
+        int[] nextTask = new int[instance.numJobs];
+        int[] nextFreeSlot = new int[instance.numMachines];
+        for(int job : jobNumbers.jobs) {
+            int task = nextTask[job]++;
+            int machine = instance.machine(job, task);
+            set(machine, nextFreeSlot[machine]++, taskId(job, task));
+        }
+    }
+
+    /** Creates an exact copy of the given order. */
+    public PackedResourceOrder(PackedResourceOrder other) {
+        super(other.instance);
+        this.order = Arrays.copyOf(other.order, other.order.length);
+        this.positions = Arrays.copyOf(other.positions, other.positions.length);
+    }
+
+    /** Identifier of the task (job, task). */
+    public int taskId(int job, int task) {
+        return job * instance.numTasks + task;
+    }
+
+    /** Job of the task with the given identifier. */
+    public int jobOf(int taskId) {
+        return taskId / instance.numTasks;
+    }
+
+    /** Index in its job of the task with the given identifier. */
+    public int taskOf(int taskId) {
+        return taskId % instance.numTasks;
+    }
+
+    /** Identifier of the index^th task executed on the given machine. */
+    public int taskAt(int machine, int index) {
+        return order[machine * instance.numJobs + index];
+    }
+
+    /** Index of the task (job, task) on its machine. */
+    public int positionOf(int job, int task) {
+        return positions[taskId(job, task)];
+    }
+
+    /** Swaps the tasks at indices i1 and i2 of the given machine. */
+    public void swap(int machine, int i1, int i2) {
+        int t1 = taskAt(machine, i1);
+        int t2 = taskAt(machine, i2);
+        set(machine, i1, t2);
+        set(machine, i2, t1);
+    }
+
+    /** Task executed just before the given one on its machine, -1 if none. */
+    private int machinePred(int taskId) {
+        int index = positions[taskId];
+        return index == 0 ? -1 : taskAt(instance.machine(taskId), index - 1);
+    }
+
+    /** Task executed just after the given one on its machine, -1 if none. */
+    private int machineSucc(int taskId) {
+        int index = positions[taskId];
+        return index == instance.numJobs - 1 ? -1 : taskAt(instance.machine(taskId), index + 1);
+    }
+
+    private void set(int machine, int index, int taskId) {
+        order[machine * instance.numJobs + index] = taskId;
+        positions[taskId] = index;
+    }
+
+    /** Converts this order into a ResourceOrder. */
+    public ResourceOrder toResourceOrder() {
+        ResourceOrder resourceOrder = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int id = taskAt(m, i);
+                resourceOrder.addTask(m, new Task(jobOf(id), taskOf(id)));
+            }
+        }
+        return resourceOrder;
+    }
+
+    /**
+     * Converts this order into job numbers, leading to the same schedule: jobs appear in a topological
+     * order of the precedence graph. Returns null if the order contains a cycle.
+     */
+    public JobNumbers toJobNumbers() {
+        if(!computeHeads())
+            return null;
+        JobNumbers jobNumbers = new JobNumbers(instance);
+        for(int id : topologicalOrder) {
+            jobNumbers.jobs[jobNumbers.nextToSet++] = jobOf(id);
+        }
+        return jobNumbers;
+    }
+
+    /** Decodes this order, returning null if it contains a cycle. */
+    @Override
+    public Schedule toSchedule() {
+        if(!computeHeads())
+            return null;
+
+        // the start time of each task is its head
+        final int numTasks = instance.numTasks;
+        int[][] startTimes = new int[instance.numJobs][numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            System.arraycopy(heads, j * numTasks, startTimes[j], 0, numTasks);
+        }
+
+        // record which predecessor, on the job or on the machine, sets the start time of each task
+        int[] criticalPredecessors = new int[heads.length];
+        for(int id = 0 ; id < heads.length ; id++) {
+            int head = heads[id];
+            if(head == 0)
+                criticalPredecessors[id] = -1;
+            else if(id % numTasks != 0 && heads[id-1] + instance.duration(id-1) == head)
+                criticalPredecessors[id] = id-1;
+            else
+                criticalPredecessors[id] = machinePred(id);
+        }
+        return new Schedule(instance, startTimes, criticalPredecessors);
+    }
+
+    /**
+     * Makespan of the schedule represented by this order, -1 if it contains a cycle.
+     * Equivalent to toSchedule().makespan() but does not allocate anything once the buffers exist.
+     */
+    public int makespan() {
+        if(!computeHeads())
+            return -1;
+        final int numTasks = instance.numTasks;
+        int makespan = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int last = taskId(j, numTasks - 1);
+            makespan = Math.max(makespan, heads[last] + instance.duration(last));
+        }
+        return makespan;
+    }
+
+    /**
+     * Computes the head of every task with Kahn's algorithm, using topologicalOrder as the queue of tasks whose
+     * predecessors have all been scheduled. Returns false if the precedence graph has a cycle, i.e. if some tasks
+     * could never be scheduled.
+     */
+    private boolean computeHeads() {
+        final int numTasks = instance.numTasks;
+        final int size = instance.numJobs * numTasks;
+        if(heads == null) {
+            inDegree = new int[size];
+            topologicalOrder = new int[size];
+            heads = new int[size];
+        }
+
+        int tail = 0;
+        for(int id = 0 ; id < size ; id++) {
+            inDegree[id] = (id % numTasks == 0 ? 0 : 1) + (positions[id] == 0 ? 0 : 1);
+            if(inDegree[id] == 0)
+                topologicalOrder[tail++] = id;
+        }
+        for(int k = 0 ; k < tail ; k++) {
+            // all predecessors of the task have been scheduled before it
+            int id = topologicalOrder[k];
+            int head = id % numTasks == 0 ? 0 : heads[id-1] + instance.duration(id-1);
+            int pred = machinePred(id);
+            if(pred != -1)
+                head = Math.max(head, heads[pred] + instance.duration(pred));
+            heads[id] = head;
+
+            if((id+1) % numTasks != 0 && --inDegree[id+1] == 0)
+                topologicalOrder[tail++] = id+1;
+            int succ = machineSucc(id);
+            if(succ != -1 && --inDegree[succ] == 0)
+                topologicalOrder[tail++] = succ;
+        }
+        return tail == size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            s.append("Machine ").append(m).append(" : ");
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int id = taskAt(m, i);
+                s.append("(").append(jobOf(id)).append(", ").append(taskOf(id)).append(") ; ");
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+}
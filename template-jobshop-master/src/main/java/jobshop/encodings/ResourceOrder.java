@@ -4,8 +4,8 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Optional;
 import java.util.stream.IntStream;
 
 public class ResourceOrder extends Encoding {
@@ -17,6 +17,39 @@ public class ResourceOrder extends Encoding {
     // for each machine, indicate on many tasks have been initialized
     public final int[] nextFreeSlot;
 
+    // State of the incremental evaluator, (re)computed by updateHeadsAndTails().
+    // In all these arrays, the task (j,t) is identified by j * numTasks + t.
+
+    // index of each task on its machine
+    private int[] positions;
+    // task executed just before (resp. after) each task on the same machine, -1 if none
+    private int[] machinePred;
+    private int[] machineSucc;
+    // number of unscheduled predecessors of each task, used to build the topological order
+    private int[] inDegree;
+    // all tasks, in a topological order of the (job and machine) precedence graph, kept valid by incremental updates
+    private int[] topologicalOrder;
+    // index of each task in topologicalOrder
+    private int[] orderIndex;
+    // heads (earliest start times) and tails (length of the longest path to the end of the schedule,
+    // excluding the task itself) of each task
+    private int[] heads;
+    private int[] tails;
+    // new heads of the tasks between the two indices of a move being estimated
+    private int[] moveHeads;
+    // buffers of the incremental updates: the tasks reordered in the topological order, their indices in it,
+    // and the marks of the tasks already found by the current search or whose head (or tail) has to be recomputed
+    private int[] forward;
+    private int[] backward;
+    private int[] slots;
+    private int[] reordered;
+    private int[] marks;
+    private int mark = 0;
+
+    // Zobrist hash of the order: xor of the keys of all (machine, index, job) placements,
+    // kept up to date by addTask(), swap() and move()
+    private long hash;
+
     /** Creates a new empty resource order. */
     public ResourceOrder(Instance instance)
     {
@@ -51,69 +84,602 @@ public class ResourceOrder extends Encoding {
             // indicate that all tasks have been initialized for machine m
             nextFreeSlot[m] = instance.numJobs;
         }
+        rehash();
     }
 
+    /**
+     * Decodes this order, returning null if it contains a cycle.
+     *
+     * The decoder is the incremental evaluator: like updateHeadsAndTails(), it recomputes the heads and tails of
+     * the current order, which later estimates then use. A decode therefore modifies the state of this order and
+     * two threads must not decode (or evaluate) the same order at once.
+     */
     @Override
     public Schedule toSchedule() {
-        // indicate for each task that have been scheduled, its start time
-        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
-
-        // for each job, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByJob = new int[instance.numJobs];
-
-        // for each machine, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByMachine = new int[instance.numMachines];
-
-        // for each machine, earliest time at which the machine can be used
-        int[] releaseTimeOfMachine = new int[instance.numMachines];
-
-
-        // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
-
-            // selects a task that has noun scheduled predecessor on its job and machine :
-            //  - it is the next to be schedule on a machine
-            //  - it is the next to be scheduled on its job
-            // if there is no such task, we have cyclic dependency and the solution is invalid
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                    .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                    .mapToObj(m -> this.tasksByMachine[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                    .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                    .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we found a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t.job, t.task);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                startTimes[t.job][t.task] = est;
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
-            } else {
-                // no tasks are schedulable, there is no solution for this resource ordering
-                return null;
-            }
+        // tasks are scheduled in a topological order of the precedence graph: a task is only
+        // scheduled once its predecessors on its job and on its machine have been scheduled
+        if(updateHeadsAndTails() == -1) {
+            // some tasks can never be scheduled : there is a cyclic dependency and no solution for this resource ordering
+            return null;
+        }
+
+        // the start time of each task is its head
+        final int numTasks = instance.numTasks;
+        int [][] startTimes = new int [instance.numJobs][numTasks];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            System.arraycopy(heads, j * numTasks, startTimes[j], 0, numTasks);
+        }
+
+        // record which predecessor, on the job or on the machine, sets the start time of each task
+        int[] criticalPredecessors = new int[heads.length];
+        for(int id = 0 ; id < heads.length ; id++) {
+            int head = heads[id];
+            if(head == 0)
+                criticalPredecessors[id] = -1;
+            else if(id % numTasks != 0 && heads[id-1] + instance.duration(id-1) == head)
+                criticalPredecessors[id] = id-1;
+            else
+                criticalPredecessors[id] = machinePred[id];
         }
-        // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        return new Schedule(instance, startTimes, criticalPredecessors);
+    }
+
+    /**
+     * Converts this (complete) order into job numbers, leading to the same schedule: jobs appear in a topological
+     * order of the precedence graph. Returns null if the order contains a cycle. Like a decode, it modifies the
+     * state of the evaluator.
+     */
+    public JobNumbers toJobNumbers() {
+        linkTasks();
+        if(!sortTopologically())
+            return null;
+        JobNumbers jobNumbers = new JobNumbers(instance);
+        for(int id : topologicalOrder) {
+            jobNumbers.jobs[jobNumbers.nextToSet++] = id / instance.numTasks;
+        }
+        return jobNumbers;
     }
 
     public void addTask(int ressource, Task task)
     {
+        hash ^= zobristKey(ressource, nextFreeSlot[ressource], task.job);
         tasksByMachine[ressource][nextFreeSlot[ressource]++] = task;
     }
 
-    /** Creates an exact copy of this resource order. */
+    /** Swaps the tasks at indices i1 and i2 of the given machine, updating the hash in constant time. */
+    public void swap(int machine, int i1, int i2) {
+        Task[] tasks = tasksByMachine[machine];
+        hash ^= swapDelta(machine, i1, i2);
+        Task tmp = tasks[i1];
+        tasks[i1] = tasks[i2];
+        tasks[i2] = tmp;
+    }
+
+    /**
+     * Moves the task at index from of the given machine to index to, the tasks in between being shifted by one
+     * position, updating the hash. move(machine, to, from) undoes it.
+     */
+    public void move(int machine, int from, int to) {
+        Task[] tasks = tasksByMachine[machine];
+        hash ^= moveDelta(machine, from, to);
+        Task task = tasks[from];
+        if(from < to)
+            System.arraycopy(tasks, from + 1, tasks, from, to - from);
+        else
+            System.arraycopy(tasks, to, tasks, to + 1, from - to);
+        tasks[to] = task;
+    }
+
+    /**
+     * 64 bits Zobrist hash of this order: two orders with the same tasks at the same indices have the same hash.
+     * It is maintained by addTask(), swap() and move(); rehash() must be called after any direct modification of tasksByMachine.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /** Hash this order would have after swapping the tasks at indices i1 and i2 of the given machine. */
+    public long hashAfterSwap(int machine, int i1, int i2) {
+        return hash ^ swapDelta(machine, i1, i2);
+    }
+
+    /** Hash this order would have after moving the task at index from of the given machine to index to. */
+    public long hashAfterMove(int machine, int from, int to) {
+        return hash ^ moveDelta(machine, from, to);
+    }
+
+    /** Recomputes the hash from scratch and returns it. */
+    public long rehash() {
+        hash = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < nextFreeSlot[m] ; i++) {
+                hash ^= zobristKey(m, i, tasksByMachine[m][i].job);
+            }
+        }
+        return hash;
+    }
+
+    private long swapDelta(int machine, int i1, int i2) {
+        int job1 = tasksByMachine[machine][i1].job;
+        int job2 = tasksByMachine[machine][i2].job;
+        return zobristKey(machine, i1, job1) ^ zobristKey(machine, i2, job2)
+                ^ zobristKey(machine, i1, job2) ^ zobristKey(machine, i2, job1);
+    }
+
+    private long moveDelta(int machine, int from, int to) {
+        Task[] tasks = tasksByMachine[machine];
+        long delta = 0;
+        for(int i = Math.min(from, to) ; i <= Math.max(from, to) ; i++) {
+            delta ^= zobristKey(machine, i, tasks[i].job) ^ zobristKey(machine, i, tasks[movedFrom(from, to, i)].job);
+        }
+        return delta;
+    }
+
+    /** Index, before the move of the task at index from to index to, of the task that is at index i after it. */
+    private static int movedFrom(int from, int to, int i) {
+        if(i == to)
+            return from;
+        return from < to ? i + 1 : i - 1;
+    }
+
+    /**
+     * Random key of the job being at the given index of the machine. Instead of a table of random numbers,
+     * the (machine, index, job) triple is mixed with the SplitMix64 finalizer, which is as good for hashing.
+     */
+    static long zobristKey(int machine, int index, int job) {
+        long z = (((long) machine << 42) ^ ((long) index << 21) ^ job) + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Computes the heads and tails of all tasks of this (complete) resource order.
+     * This must be called again after any modification of the order and before
+     * any call to {@link #estimateSwap(int, int, int)} or {@link #estimateMove(int, int, int)}.
+     *
+     * Every call propagates the whole order, in O(numJobs * numTasks). After a move or a swap of an order
+     * whose heads and tails are up to date, {@link #updateHeadsAndTails(int, int, int)} only propagates the
+     * tasks it affects.
+     *
+     * Returns the makespan of the order or -1 if the order contains a cycle.
+     */
+    public int updateHeadsAndTails() {
+        linkTasks();
+        if(!sortTopologically())
+            return -1;
+        computeHeads();
+
+        // tails, in reverse topological order
+        final int numTasks = instance.numTasks;
+        int makespan = 0;
+        for(int k = topologicalOrder.length - 1 ; k >= 0 ; k--) {
+            int id = topologicalOrder[k];
+            int tail = (id+1) % numTasks == 0 ? 0 : tails[id+1] + instance.duration(id+1);
+            int succ = machineSucc[id];
+            if(succ != -1)
+                tail = Math.max(tail, tails[succ] + instance.duration(succ));
+            tails[id] = tail;
+            makespan = Math.max(makespan, heads[id] + instance.duration(id) + tail);
+        }
+        return makespan;
+    }
+
+    /**
+     * Updates the heads and tails after the tasks between indices from and to of the given machine have been
+     * reordered, by move(machine, from, to) or swap(machine, from, to), the heads and tails being up to date before.
+     *
+     * The topological order of the previous update is first repaired: after a move or a swap of adjacent tasks,
+     * only one new edge of the machine goes backward in it, and only the tasks between its two ends that are
+     * connected to them are reordered (Pearce and Kelly). Then the heads are propagated from the reordered tasks,
+     * in this order, only to the successors of the tasks whose head changes, and so are the tails, backward.
+     * Other modifications, such as the swap of two tasks that are not adjacent, lead to a full update.
+     *
+     * Returns the new makespan or -1 if the order now contains a cycle. The heads and tails are then no longer
+     * valid: once the modification is undone, they have to be computed again with updateHeadsAndTails().
+     */
+    public int updateHeadsAndTails(int machine, int from, int to) {
+        final int lo = Math.min(from, to);
+        final int hi = Math.max(from, to);
+        if(marks == null) {
+            forward = new int[heads.length];
+            backward = new int[heads.length];
+            slots = new int[heads.length];
+            reordered = new int[heads.length];
+            marks = new int[heads.length];
+        }
+
+        // new machine neighbours of the reordered tasks
+        for(int i = lo ; i <= hi ; i++) {
+            int id = taskId(machine, i);
+            positions[id] = i;
+            machinePred[id] = i == 0 ? -1 : taskId(machine, i-1);
+            machineSucc[id] = i == instance.numJobs - 1 ? -1 : taskId(machine, i+1);
+        }
+        if(lo > 0)
+            machineSucc[taskId(machine, lo-1)] = taskId(machine, lo);
+        if(hi < instance.numJobs - 1)
+            machinePred[taskId(machine, hi+1)] = taskId(machine, hi);
+
+        // machine edges going backward in the topological order
+        int backwardEdges = 0;
+        int source = -1;
+        for(int i = Math.max(lo-1, 0) ; i <= hi && i < instance.numJobs - 1 ; i++) {
+            int u = taskId(machine, i);
+            if(orderIndex[u] > orderIndex[machineSucc[u]]) {
+                backwardEdges++;
+                source = u;
+            }
+        }
+        if(backwardEdges > 1)
+            return updateHeadsAndTails();
+        if(backwardEdges == 1 && !reorder(source, machineSucc[source]))
+            return -1;
+
+        propagateHeads(machine, lo, Math.min(hi+1, instance.numJobs-1));
+        propagateTails(machine, Math.max(lo-1, 0), hi);
+
+        // the longest path ends with the last task of a job
+        final int numTasks = instance.numTasks;
+        int makespan = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int last = j * numTasks + numTasks - 1;
+            makespan = Math.max(makespan, heads[last] + instance.duration(last));
+        }
+        return makespan;
+    }
+
+    /**
+     * Repairs the topological order once the edge x -> y, with y before x in the order, has been added.
+     * The tasks reachable from y that are before x (forward) have to be put after the tasks from which x can
+     * be reached that are after y (backward): together, they take the same indices in the order, the backward
+     * tasks first, each set keeping its own order. Returns false if the edge creates a cycle, i.e. if x can be
+     * reached from y, in which case the order is not modified.
+     */
+    private boolean reorder(int x, int y) {
+        final int lower = orderIndex[y];
+        final int upper = orderIndex[x];
+        final int numTasks = instance.numTasks;
+
+        nextMark();
+        int numForward = 0;
+        forward[numForward++] = y;
+        marks[y] = mark;
+        for(int k = 0 ; k < numForward ; k++) {
+            int id = forward[k];
+            int onJob = (id+1) % numTasks == 0 ? -1 : id+1;
+            int onMachine = machineSucc[id];
+            if(onJob == x || onMachine == x)
+                return false;
+            if(onJob != -1 && orderIndex[onJob] < upper && marks[onJob] != mark) {
+                marks[onJob] = mark;
+                forward[numForward++] = onJob;
+            }
+            if(onMachine != -1 && orderIndex[onMachine] < upper && marks[onMachine] != mark) {
+                marks[onMachine] = mark;
+                forward[numForward++] = onMachine;
+            }
+        }
+
+        nextMark();
+        int numBackward = 0;
+        backward[numBackward++] = x;
+        marks[x] = mark;
+        for(int k = 0 ; k < numBackward ; k++) {
+            int id = backward[k];
+            int onJob = id % numTasks == 0 ? -1 : id-1;
+            int onMachine = machinePred[id];
+            if(onJob != -1 && orderIndex[onJob] > lower && marks[onJob] != mark) {
+                marks[onJob] = mark;
+                backward[numBackward++] = onJob;
+            }
+            if(onMachine != -1 && orderIndex[onMachine] > lower && marks[onMachine] != mark) {
+                marks[onMachine] = mark;
+                backward[numBackward++] = onMachine;
+            }
+        }
+
+        // each set in its current order
+        for(int k = 0 ; k < numForward ; k++) {
+            forward[k] = orderIndex[forward[k]];
+        }
+        for(int k = 0 ; k < numBackward ; k++) {
+            backward[k] = orderIndex[backward[k]];
+        }
+        Arrays.sort(forward, 0, numForward);
+        Arrays.sort(backward, 0, numBackward);
+
+        // indices taken by both sets, in increasing order, and the tasks that get them
+        int f = 0;
+        int b = 0;
+        for(int k = 0 ; k < numForward + numBackward ; k++) {
+            slots[k] = b == numBackward || (f < numForward && forward[f] < backward[b]) ? forward[f++] : backward[b++];
+        }
+        for(int k = 0 ; k < numBackward ; k++) {
+            reordered[k] = topologicalOrder[backward[k]];
+        }
+        for(int k = 0 ; k < numForward ; k++) {
+            reordered[numBackward + k] = topologicalOrder[forward[k]];
+        }
+        for(int k = 0 ; k < numForward + numBackward ; k++) {
+            topologicalOrder[slots[k]] = reordered[k];
+            orderIndex[reordered[k]] = slots[k];
+        }
+        return true;
+    }
+
+    /**
+     * Recomputes the heads of the tasks between indices first and last of the machine, whose predecessors have
+     * changed, and of every task with a predecessor whose head changes. These tasks are marked and recomputed
+     * in the topological order, from the first one, until none is left: the heads of their predecessors are then final.
+     */
+    private void propagateHeads(int machine, int first, int last) {
+        nextMark();
+        int start = topologicalOrder.length;
+        for(int i = first ; i <= last ; i++) {
+            int id = taskId(machine, i);
+            marks[id] = mark;
+            start = Math.min(start, orderIndex[id]);
+        }
+        final int numTasks = instance.numTasks;
+        int pending = last - first + 1;
+        for(int k = start ; pending > 0 ; k++) {
+            int id = topologicalOrder[k];
+            if(marks[id] != mark)
+                continue;
+            pending--;
+            int head = jobHead(id);
+            int pred = machinePred[id];
+            if(pred != -1)
+                head = Math.max(head, heads[pred] + instance.duration(pred));
+            if(head == heads[id])
+                continue;
+            heads[id] = head;
+            if((id+1) % numTasks != 0 && marks[id+1] != mark) {
+                marks[id+1] = mark;
+                pending++;
+            }
+            int succ = machineSucc[id];
+            if(succ != -1 && marks[succ] != mark) {
+                marks[succ] = mark;
+                pending++;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the tails of the tasks between indices first and last of the machine, whose successors have
+     * changed, and of every task with a successor whose tail changes, in the reverse topological order.
+     */
+    private void propagateTails(int machine, int first, int last) {
+        nextMark();
+        int start = -1;
+        for(int i = first ; i <= last ; i++) {
+            int id = taskId(machine, i);
+            marks[id] = mark;
+            start = Math.max(start, orderIndex[id]);
+        }
+        final int numTasks = instance.numTasks;
+        int pending = last - first + 1;
+        for(int k = start ; pending > 0 ; k--) {
+            int id = topologicalOrder[k];
+            if(marks[id] != mark)
+                continue;
+            pending--;
+            int tail = jobTail(id);
+            int succ = machineSucc[id];
+            if(succ != -1)
+                tail = Math.max(tail, tails[succ] + instance.duration(succ));
+            if(tail == tails[id])
+                continue;
+            tails[id] = tail;
+            if(id % numTasks != 0 && marks[id-1] != mark) {
+                marks[id-1] = mark;
+                pending++;
+            }
+            int pred = machinePred[id];
+            if(pred != -1 && marks[pred] != mark) {
+                marks[pred] = mark;
+                pending++;
+            }
+        }
+    }
+
+    /** Starts a new search or propagation: no task is marked anymore. */
+    private void nextMark() {
+        if(++mark == 0) {
+            // the marks went round: the old ones cannot be told apart from the new one anymore
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+    }
+
+    /**
+     * Index of the task (job, task) on its machine.
+     * Only valid after a call to toSchedule() or updateHeadsAndTails() on the current order.
+     */
+    public int positionOf(int job, int task) {
+        return positions[job * instance.numTasks + task];
+    }
+
+    /** Identifier (job * numTasks + task) of the task at the given index of the machine. */
+    public int taskId(int machine, int index) {
+        Task task = tasksByMachine[machine][index];
+        return task.job * instance.numTasks + task.task;
+    }
+
+    /** Head (earliest start time) of the task with the given identifier. Heads and tails must be up to date. */
+    public int head(int id) {
+        return heads[id];
+    }
+
+    /**
+     * Tail of the task with the given identifier: length of the longest path from its end to the end of the schedule.
+     * Heads and tails must be up to date.
+     */
+    public int tail(int id) {
+        return tails[id];
+    }
+
+    /**
+     * Records the position and machine neighbours of every task, allocating the arrays of the
+     * evaluator on first use. The order must be complete.
+     */
+    private void linkTasks() {
+        final int numTasks = instance.numTasks;
+        if(heads == null) {
+            final int size = instance.numJobs * numTasks;
+            positions = new int[size];
+            machinePred = new int[size];
+            machineSucc = new int[size];
+            inDegree = new int[size];
+            topologicalOrder = new int[size];
+            orderIndex = new int[size];
+            heads = new int[size];
+            tails = new int[size];
+            moveHeads = new int[instance.numJobs];
+        }
+
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int previous = -1;
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                Task task = tasksByMachine[m][i];
+                int id = task.job * numTasks + task.task;
+                positions[id] = i;
+                machinePred[id] = previous;
+                machineSucc[id] = -1;
+                if(previous != -1)
+                    machineSucc[previous] = id;
+                previous = id;
+            }
+        }
+    }
+
+    /** Computes the head of every task, following the topological order. */
+    private void computeHeads() {
+        final int numTasks = instance.numTasks;
+        for(int k = 0 ; k < topologicalOrder.length ; k++) {
+            int id = topologicalOrder[k];
+            int head = id % numTasks == 0 ? 0 : heads[id-1] + instance.duration(id-1);
+            int pred = machinePred[id];
+            if(pred != -1)
+                head = Math.max(head, heads[pred] + instance.duration(pred));
+            heads[id] = head;
+        }
+    }
+
+    /**
+     * Fills topologicalOrder with Kahn's algorithm, using the array itself as the queue of tasks
+     * whose predecessors have all been ordered. Returns false if the precedence graph has a cycle,
+     * i.e. if some tasks could never be ordered.
+     */
+    private boolean sortTopologically() {
+        final int numTasks = instance.numTasks;
+        final int size = instance.numJobs * numTasks;
+        int tail = 0;
+        for(int id = 0 ; id < size ; id++) {
+            inDegree[id] = (id % numTasks == 0 ? 0 : 1) + (machinePred[id] == -1 ? 0 : 1);
+            if(inDegree[id] == 0)
+                topologicalOrder[tail++] = id;
+        }
+        for(int head = 0 ; head < tail ; head++) {
+            int id = topologicalOrder[head];
+            if((id+1) % numTasks != 0 && --inDegree[id+1] == 0)
+                topologicalOrder[tail++] = id+1;
+            int succ = machineSucc[id];
+            if(succ != -1 && --inDegree[succ] == 0)
+                topologicalOrder[tail++] = succ;
+        }
+        if(tail != size)
+            return false;
+        for(int k = 0 ; k < size ; k++) {
+            orderIndex[topologicalOrder[k]] = k;
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the makespan of the order obtained by swapping the two adjacent tasks at indices t1 and t2
+     * of the given machine, without modifying this order. Heads and tails must be up to date.
+     *
+     * The result is the length of the longest path going through one of the two swapped tasks in the
+     * new order. It is exact when the new critical path goes through them and is a lower bound of the new
+     * makespan otherwise, provided the swap does not create a cycle (which never happens when the two tasks
+     * are on a critical path).
+     */
+    public int estimateSwap(int machine, int t1, int t2) {
+        if(Math.abs(t1 - t2) != 1)
+            throw new IllegalArgumentException("Only adjacent tasks can be evaluated: "+t1+" and "+t2);
+        return estimateMove(machine, Math.min(t1, t2), Math.max(t1, t2));
+    }
+
+    /**
+     * Estimates the makespan of the order obtained by move(machine, from, to), without modifying this order,
+     * as Balas and Vazacopoulos do. Heads and tails must be up to date.
+     *
+     * The heads of the tasks between indices from and to are computed again in their new order, from the current
+     * heads of their job predecessors and of the task before them on the machine, and so are their tails.
+     * The result is the length of the longest path going through one of these tasks: for a swap of adjacent tasks,
+     * it is the same as estimateSwap(). It is cheaper than an evaluation but may overestimate as well as
+     * underestimate the makespan when the moved tasks are not on the new critical path.
+     */
+    public int estimateMove(int machine, int from, int to) {
+        final int lo = Math.min(from, to);
+        final int hi = Math.max(from, to);
+
+        // new heads, in the new order
+        int end = lo == 0 ? 0 : heads[taskId(machine, lo-1)] + instance.duration(taskId(machine, lo-1));
+        for(int i = lo ; i <= hi ; i++) {
+            int id = taskId(machine, movedFrom(from, to, i));
+            int head = Math.max(jobHead(id), end);
+            moveHeads[i - lo] = head;
+            end = head + instance.duration(id);
+        }
+
+        // new tails, in the reverse new order, each task giving a path of the new order
+        int next = hi == instance.numJobs - 1 ? 0 : tails[taskId(machine, hi+1)] + instance.duration(taskId(machine, hi+1));
+        int estimate = 0;
+        for(int i = hi ; i >= lo ; i--) {
+            int id = taskId(machine, movedFrom(from, to, i));
+            int tail = Math.max(jobTail(id), next);
+            estimate = Math.max(estimate, moveHeads[i - lo] + instance.duration(id) + tail);
+            next = tail + instance.duration(id);
+        }
+        return estimate;
+    }
+
+    /** Earliest start time of a task given only its predecessor on the job. */
+    private int jobHead(int id) {
+        return id % instance.numTasks == 0 ? 0 : heads[id-1] + instance.duration(id-1);
+    }
+
+    /** Tail of a task given only its successor on the job. */
+    private int jobTail(int id) {
+        return (id+1) % instance.numTasks == 0 ? 0 : tails[id+1] + instance.duration(id+1);
+    }
+
+    /**
+     * Creates an exact copy of this resource order, sharing its (immutable) tasks. As after any modification,
+     * the heads and tails of the copy have to be computed before being used.
+     */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        ResourceOrder copy = new ResourceOrder(instance);
+        copyInto(copy);
+        return copy;
+    }
+
+    /**
+     * Overwrites the given order, of the same instance, with this one, without allocating anything.
+     * As after any modification, the heads and tails of the target have to be computed again before being used.
+     */
+    public void copyInto(ResourceOrder target) {
+        if(target.instance != instance)
+            throw new IllegalArgumentException("Cannot copy a resource order into an order of another instance");
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            System.arraycopy(tasksByMachine[m], 0, target.tasksByMachine[m], 0, instance.numJobs);
+        }
+        System.arraycopy(nextFreeSlot, 0, target.nextFreeSlot, 0, instance.numMachines);
+        target.hash = hash;
     }
 
     @Override
@@ -1,13 +1,18 @@
 package jobshop.solvers;
 
+import jobshop.Budget;
+import jobshop.ImprovementListener;
 import jobshop.Instance;
 import jobshop.Result;
+import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.SolverMetrics;
 import jobshop.encodings.JobNumbers;
 
 public class BasicSolver implements Solver {
     @Override
-    public Result solve(Instance instance, long deadline) {
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        SolverMetrics metrics = new SolverMetrics();
 
         JobNumbers sol = new JobNumbers(instance);
         for(int t = 0 ; t<instance.numTasks ; t++) {
@@ -16,6 +21,10 @@ public class BasicSolver implements Solver {
             }
         }
 
-        return new Result(instance, sol.toSchedule(), Result.ExitCause.Blocked);
+        Schedule schedule = sol.toSchedule();
+        metrics.decodes.increment();
+        metrics.improvement(schedule.makespan(), () -> schedule, listener);
+        metrics.stop();
+        return new Result(instance, schedule, Result.ExitCause.Blocked, metrics);
     }
 }
@@ -0,0 +1,366 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exact depth-first branch and bound, for small and medium instances.
+ *
+ * Nodes are partial active schedules built as in the Giffler and Thompson algorithm: the machine on which the
+ * earliest completion time of the next tasks is reached is selected, and one child is created for each of its
+ * tasks that could start before this time. A node is pruned when its lower bound, the largest of the remaining
+ * work of each job and of the preemptive one machine bound of each machine, is not smaller than the best makespan.
+ *
+ * The search starts from the best solution of the descents of all priority rules. The first levels of the tree
+ * are explored as separate tasks of a fork-join pool, which balances the subtrees between threads by work
+ * stealing; below them each subtree is explored sequentially. The best makespan is shared by all threads.
+ * Each node explored sequentially is an iteration of the budget, and each complete schedule an evaluation.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    // number of threads exploring the tree
+    int threads = Runtime.getRuntime().availableProcessors();
+    // nodes above this depth are explored as separate tasks
+    int parallelDepth = 6;
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    public void setParallelDepth(int parallelDepth) {
+        this.parallelDepth = parallelDepth;
+    }
+
+    @Override
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        SolverMetrics metrics = new SolverMetrics();
+        // initial upper bound
+        Result seed = null;
+        for (String priority : new String[]{"SPT", "LPT", "SRPT", "LRPT", "EST_SPT", "EST_LRPT"}) {
+            DescentSolver descent = new DescentSolver();
+            descent.setGloutonPriority(priority);
+            Result result = descent.solve(instance, budget, schedule -> metrics.improvement(schedule.makespan(), () -> schedule, listener));
+            if (seed == null || result.schedule.makespan() < seed.schedule.makespan()) {
+                seed = result;
+            }
+            metrics.restarts.increment();
+        }
+        if (seed.cause == Result.ExitCause.ProvedOptimal || budget.isExhausted()) {
+            metrics.stop();
+            return new Result(instance, seed.schedule, seed.cause, metrics);
+        }
+
+        Search search = new Search(instance, seed.schedule.makespan(), budget, metrics, listener);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Node(search, new State(instance), 0));
+        } finally {
+            pool.shutdown();
+        }
+
+        metrics.stop();
+        Result.ExitCause cause = search.timedOut ? Result.ExitCause.Timeout : Result.ExitCause.ProvedOptimal;
+        if (search.bestSequences == null) {
+            // nothing better than the initial solution
+            return new Result(instance, seed.schedule, cause, metrics);
+        }
+        return new Result(instance, search.schedule(search.bestSequences), cause, metrics);
+    }
+
+    /** Partial schedule: the tasks scheduled so far and the times at which jobs and machines are free. */
+    private static final class State {
+        final int[] nextTask;
+        final int[] jobTime;
+        final int[] machineTime;
+        // for each machine m, sequence[m * numJobs + i] is the job of its i^th task
+        final int[] sequence;
+        final int[] sequenceLength;
+        int scheduled;
+
+        State(Instance instance) {
+            nextTask = new int[instance.numJobs];
+            jobTime = new int[instance.numJobs];
+            machineTime = new int[instance.numMachines];
+            sequence = new int[instance.numMachines * instance.numJobs];
+            sequenceLength = new int[instance.numMachines];
+        }
+
+        State(State other) {
+            nextTask = other.nextTask.clone();
+            jobTime = other.jobTime.clone();
+            machineTime = other.machineTime.clone();
+            sequence = other.sequence.clone();
+            sequenceLength = other.sequenceLength.clone();
+            scheduled = other.scheduled;
+        }
+    }
+
+    /** Data shared by all the nodes of a search. */
+    private static final class Search {
+        final Instance instance;
+        final Budget budget;
+        final AtomicInteger upperBound;
+        // explored nodes are counted as neighbours and complete schedules as decodes
+        final SolverMetrics metrics;
+        final ImprovementListener listener;
+        // prefix[j * (numTasks + 1) + t] is the duration of the first t tasks of job j
+        final int[] prefix;
+        // set when the budget is exhausted
+        volatile boolean timedOut = false;
+        // machine sequences of the best schedule found by the search, if any
+        int[] bestSequences = null;
+        // buffers of each thread of the pool
+        final ThreadLocal<Buffers> buffers;
+
+        Search(Instance instance, int upperBound, Budget budget, SolverMetrics metrics, ImprovementListener listener) {
+            this.instance = instance;
+            this.budget = budget;
+            this.upperBound = new AtomicInteger(upperBound);
+            this.metrics = metrics;
+            this.listener = listener;
+            this.buffers = ThreadLocal.withInitial(() -> new Buffers(instance));
+            this.prefix = new int[instance.numJobs * (instance.numTasks + 1)];
+            for (int j = 0; j < instance.numJobs; j++) {
+                for (int t = 0; t < instance.numTasks; t++) {
+                    prefix[j * (instance.numTasks + 1) + t + 1] = prefix[j * (instance.numTasks + 1) + t] + instance.duration(j, t);
+                }
+            }
+        }
+
+        /** Duration of the tasks first (included) to last (excluded) of the job. */
+        int work(int job, int first, int last) {
+            int base = job * (instance.numTasks + 1);
+            return prefix[base + last] - prefix[base + first];
+        }
+
+        synchronized void offer(State state, int makespan) {
+            if (makespan < upperBound.get()) {
+                int[] sequences = state.sequence.clone();
+                bestSequences = sequences;
+                upperBound.set(makespan);
+                metrics.improvement(makespan, () -> schedule(sequences), listener);
+            }
+        }
+
+        /** Schedule with the given machine sequences. */
+        Schedule schedule(int[] sequences) {
+            ResourceOrder order = new ResourceOrder(instance);
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int i = 0; i < instance.numJobs; i++) {
+                    int job = sequences[m * instance.numJobs + i];
+                    order.addTask(m, new Task(job, instance.task_with_machine(job, m)));
+                }
+            }
+            return order.toSchedule();
+        }
+    }
+
+    /**
+     * Buffers of the nodes explored by a thread, allocated once. A sequential exploration never lets its thread
+     * run another node, and the nodes explored as separate tasks are done with them before forking their children:
+     * the nodes run by a thread never use them at the same time.
+     */
+    private static final class Buffers {
+        // children[d] holds the children of the node of depth d being explored, the depth being the number of scheduled tasks
+        final int[][] children;
+        // buffers of the one machine bound
+        final int[] releases;
+        final int[] durations;
+        final int[] tails;
+        final int[] remaining;
+
+        Buffers(Instance instance) {
+            children = new int[instance.numJobs * instance.numTasks][instance.numJobs];
+            releases = new int[instance.numJobs];
+            durations = new int[instance.numJobs];
+            tails = new int[instance.numJobs];
+            remaining = new int[instance.numJobs];
+        }
+    }
+
+    /** Explores the subtree of a node, forking its children if it is shallow enough. */
+    private class Node extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Search search;
+        final State state;
+        final int depth;
+        final Instance instance;
+
+        // buffers of the thread running this node
+        Buffers buffers;
+        // budget of the sequential exploration, null for the nodes explored as separate tasks
+        Budget.Checker check = null;
+        // counts the nodes explored sequentially
+        int nodes = 0;
+
+        Node(Search search, State state, int depth) {
+            this.search = search;
+            this.state = state;
+            this.depth = depth;
+            this.instance = search.instance;
+        }
+
+        @Override
+        protected void compute() {
+            buffers = search.buffers.get();
+            if (depth >= parallelDepth) {
+                check = search.budget.checker();
+                explore();
+                search.metrics.neighbours.add(nodes);
+                return;
+            }
+            search.metrics.neighbours.increment();
+            if (search.timedOut || search.budget.isExhausted()) {
+                search.timedOut = true;
+                return;
+            }
+            int[] children = buffers.children[state.scheduled];
+            int count = branch(children);
+            if (count == 0) {
+                return;
+            }
+            List<Node> subtrees = new ArrayList<>();
+            for (int c = 0; c < count; c++) {
+                State child = new State(state);
+                apply(child, children[c]);
+                subtrees.add(new Node(search, child, depth + 1));
+            }
+            invokeAll(subtrees);
+        }
+
+        /** Sequential exploration of the subtree of the current state, which is restored afterwards. */
+        private void explore() {
+            if (search.timedOut) {
+                return;
+            }
+            nodes++;
+            if (!check.next()) {
+                search.timedOut = true;
+                return;
+            }
+            // the children of the deeper nodes are written in the next rows
+            int[] children = buffers.children[state.scheduled];
+            int count = branch(children);
+            for (int c = 0; c < count; c++) {
+                int job = children[c];
+                int task = state.nextTask[job];
+                int machine = instance.machine(job, task);
+                int jobTime = state.jobTime[job];
+                int machineTime = state.machineTime[machine];
+                apply(state, job);
+                explore();
+                // undo
+                state.nextTask[job] = task;
+                state.jobTime[job] = jobTime;
+                state.machineTime[machine] = machineTime;
+                state.sequenceLength[machine]--;
+                state.scheduled--;
+            }
+        }
+
+        /**
+         * Fills children with the jobs whose next task can be scheduled at this node, by increasing start time,
+         * and returns their number. Returns 0 for leaves, after recording complete schedules, and for pruned nodes.
+         */
+        private int branch(int[] children) {
+            if (state.scheduled == instance.numJobs * instance.numTasks) {
+                int makespan = 0;
+                for (int time : state.jobTime) {
+                    makespan = Math.max(makespan, time);
+                }
+                search.metrics.decodes.increment();
+                if (check != null) {
+                    check.evaluated(1);
+                }
+                search.offer(state, makespan);
+                return 0;
+            }
+            if (bound() >= search.upperBound.get()) {
+                return 0;
+            }
+
+            // machine on which the earliest completion time of the next tasks is reached
+            int earliestCompletion = Integer.MAX_VALUE;
+            int selectedMachine = -1;
+            for (int j = 0; j < instance.numJobs; j++) {
+                int t = state.nextTask[j];
+                if (t == instance.numTasks) continue;
+                int m = instance.machine(j, t);
+                int completion = Math.max(state.jobTime[j], state.machineTime[m]) + instance.duration(j, t);
+                if (completion < earliestCompletion) {
+                    earliestCompletion = completion;
+                    selectedMachine = m;
+                }
+            }
+
+            // tasks of this machine that could start before, sorted by start time
+            int count = 0;
+            for (int j = 0; j < instance.numJobs; j++) {
+                int t = state.nextTask[j];
+                if (t == instance.numTasks || instance.machine(j, t) != selectedMachine) continue;
+                int start = Math.max(state.jobTime[j], state.machineTime[selectedMachine]);
+                if (start >= earliestCompletion) continue;
+                int i = count++;
+                while (i > 0 && Math.max(state.jobTime[children[i - 1]], state.machineTime[selectedMachine]) > start) {
+                    children[i] = children[i - 1];
+                    i--;
+                }
+                children[i] = j;
+            }
+            return count;
+        }
+
+        /** Schedules the next task of the job as early as possible. */
+        private void apply(State state, int job) {
+            int task = state.nextTask[job];
+            int machine = instance.machine(job, task);
+            int end = Math.max(state.jobTime[job], state.machineTime[machine]) + instance.duration(job, task);
+            state.jobTime[job] = end;
+            state.machineTime[machine] = end;
+            state.nextTask[job] = task + 1;
+            state.sequence[machine * instance.numJobs + state.sequenceLength[machine]++] = job;
+            state.scheduled++;
+        }
+
+        /** Lower bound of the makespan of all complete schedules of the subtree of the current state. */
+        private int bound() {
+            int[] releases = buffers.releases;
+            int[] durations = buffers.durations;
+            int[] tails = buffers.tails;
+            int bound = 0;
+            for (int j = 0; j < instance.numJobs; j++) {
+                bound = Math.max(bound, state.jobTime[j] + search.work(j, state.nextTask[j], instance.numTasks));
+            }
+            for (int m = 0; m < instance.numMachines && bound < search.upperBound.get(); m++) {
+                int k = 0;
+                for (int j = 0; j < instance.numJobs; j++) {
+                    int t = instance.task_with_machine(j, m);
+                    if (t < state.nextTask[j]) continue;
+                    releases[k] = Math.max(state.jobTime[j] + search.work(j, state.nextTask[j], t), state.machineTime[m]);
+                    durations[k] = instance.duration(j, t);
+                    tails[k] = search.work(j, t + 1, instance.numTasks);
+                    k++;
+                }
+                if (k > 0) {
+                    bound = Math.max(bound, LowerBound.preemptiveJackson(k, releases, durations, tails, buffers.remaining));
+                }
+            }
+            return bound;
+        }
+    }
+
+}
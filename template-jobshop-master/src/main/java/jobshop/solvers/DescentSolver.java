@@ -1,215 +1,323 @@
 package jobshop.solvers;
 
+import jobshop.Budget;
+import jobshop.ImprovementListener;
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
 import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.SolverMetrics;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
 
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
 
 public class DescentSolver implements Solver {
 
-    //Creating a GloutonSolver solution.
-    GloutonSolver solverGlouton = new GloutonSolver();
+    // priority rule of the GloutonSolver building the initial solution
+    String gloutonPriority = "SPT";
 
-    /**
-     * A block represents a subsequence of the critical path such that all tasks in it execute on the same machine.
-     * This class identifies a block in a ResourceOrder representation.
-     * <p>
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     * <p>
-     * The block with : machine = 1, Task_F= 0 and lastTask = 1
-     * Represent the task sequence : [(0,2) (2,1)]
-     */
-    static class Block {
-        /**
-         * machine on which the block is identified
-         */
-        final int machine;
-        /**
-         * index of the first task of the block
-         */
-        final int Task_F;
-        /**
-         * index of the last task of the block
-         */
-        final int lastTask;
-
-        Block(int machine, int Task_F, int lastTask) {
-            this.machine = machine;
-            this.Task_F = Task_F;
-            this.lastTask = lastTask;
-        }
+    /** How the next solution is chosen among the neighbours. */
+    public enum Strategy {
+        /** The best neighbour */
+        STEEPEST,
+        /** The first neighbour, in the order of the neighbourhood, that improves the solution */
+        FIRST_IMPROVEMENT
     }
 
-    /**
-     * Represents a swap of two tasks on the same machine in a ResourceOrder encoding.
-     * <p>
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     * <p>
-     * The swam with : machine = 1, t1= 0 and t2 = 1
-     * Represent inversion of the two tasks : (0,2) and (2,1)
-     * Applying this swap on the above resource order should result in the following one :
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (2,1) (0,2) (1,1)
-     * machine 2 : ...
-     */
-    static class Swap {
-        // machine on which to perform the swap
-        final int machine;
-        // index of one task to be swapped
-        final int t1;
-        // index of the other task to be swapped
-        final int t2;
-
-        Swap(int machine, int t1, int t2) {
-            this.machine = machine;
-            this.t1 = t1;
-            this.t2 = t2;
-        }
+    Strategy strategy = Strategy.STEEPEST;
 
-        /**
-         * Apply this swap on the given resource order, transforming it into a new solution.
-         */
-        public void applyOn(ResourceOrder order) {
-            int swapTask1 = this.t1;
-            int swapTask2 = this.t2;
-            int machine = this.machine;
-            Task tmp = order.tasksByMachine[machine][swapTask1];
-            order.tasksByMachine[machine][swapTask1] = order.tasksByMachine[machine][swapTask2];
-            order.tasksByMachine[machine][swapTask2] = tmp;
+    // neighbours of a solution: N6 moves of tasks to the start or the end of their block, or only N5 swaps
+    Neighbourhood.Type neighbourhood = Neighbourhood.Type.N6;
+
+    // number of threads evaluating the neighbours. With a single thread, neighbours are only estimated
+    // with the heads and tails of the current solution, otherwise they are all evaluated exactly in parallel.
+    int threads = 1;
+
+    // number of neighbour makespans remembered during a descent, so that neighbours already evaluated
+    // in a previous step are not evaluated again
+    int cacheSize = 1 << 16;
 
-        }
-    }
     public void setGloutonPriority(String prio){
-        solverGlouton.setPriority(prio);
+        PriorityRule.valueOf(prio);
+        gloutonPriority = prio;
+    }
+    public void setStrategy(Strategy strategy){
+        this.strategy = strategy;
+    }
+    public void setNeighbourhood(Neighbourhood.Type neighbourhood){
+        this.neighbourhood = neighbourhood;
+    }
+    public void setThreads(int threads){
+        this.threads = threads;
+    }
+    public void setCacheSize(int cacheSize){
+        this.cacheSize = cacheSize;
     }
     @Override
-    public Result solve(Instance instance, long deadline) {
-        if(solverGlouton.getPriority() == null){
-            solverGlouton.setPriority("SPT");
-        }
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
         //Init
-        Result result = solverGlouton.solve(instance, deadline);
+        SolverMetrics metrics = new SolverMetrics();
+        GloutonSolver glouton = new GloutonSolver();
+        glouton.setPriority(gloutonPriority);
+        Result result = glouton.solve(instance, budget, ImprovementListener.NONE);
+        metrics.decodes.increment();
+        Result descent = descend(instance, result.schedule, budget.checker(), makespan -> false, metrics, listener);
+        metrics.stop();
+        return descent;
+    }
+
+    /**
+     * Descent starting from the given schedule, a step being an iteration of the budget and each neighbour
+     * an evaluation. After each improvement, the descent is abandoned if the stop condition holds for the new makespan.
+     * The work done is added to the given metrics, which pass the improvements to the listener.
+     */
+    Result descend(Instance instance, Schedule start, Budget.Checker check, IntPredicate stop, SolverMetrics metrics, ImprovementListener listener) {
+        ResourceOrder rso = new ResourceOrder(start);
+        int makespan = rso.updateHeadsAndTails();
+        metrics.decodes.increment();
+        metrics.improvement(makespan, rso::toSchedule, listener);
+        int lowerBound = LowerBound.of(instance);
+        MakespanCache cache = new MakespanCache(cacheSize);
+        Neighbourhood neighbourhood = new Neighbourhood(instance, this.neighbourhood);
+        // estimate or makespan of each neighbour, and its hash in a parallel descent
+        int[] values = new int[neighbourhood.capacity()];
+        long[] hashes = null;
 
-        ResourceOrder rso = new ResourceOrder(result.schedule);
-        //Memorize the best solution
-        ResourceOrder rso_optimal = rso.copy();
-        int makespan_optimal = rso_optimal.toSchedule().makespan();
+        ForkJoinPool pool = null;
+        ResourceOrder[] scratch = null;
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            // one copy of the current solution per thread, with its own heads and tails, on which neighbours are evaluated
+            scratch = new ResourceOrder[threads];
+            hashes = new long[neighbourhood.capacity()];
+            for (int i = 0; i < threads; i++) {
+                scratch[i] = rso.copy();
+                scratch[i].updateHeadsAndTails();
+            }
+        }
 
-        boolean new_Voisin = true;
         //Stop if no better neighboor exists.
-        while (new_Voisin) {
-            new_Voisin=false;
-            ResourceOrder rso_tmp= rso_optimal.copy();
-            List<Swap> ListSwap = new ArrayList<>();
-            List<Block> BlockList = this.blocksOfCriticalPath(rso_tmp);
-
-            for (Block block : BlockList) {
-                ListSwap.addAll(this.neighbors(block));
+        Result.ExitCause cause = Result.ExitCause.Blocked;
+        try {
+            while (true) {
+                if (makespan == lowerBound) {
+                    cause = Result.ExitCause.ProvedOptimal;
+                    break;
+                }
+                if (!check.next()) {
+                    cause = Result.ExitCause.Timeout;
+                    break;
+                }
+                int next = pool == null
+                        ? this.step(rso, makespan, neighbourhood, values, cache, metrics, check)
+                        : this.parallelStep(rso, makespan, neighbourhood, values, hashes, cache, metrics, check, pool, scratch);
+                if (next >= makespan) {
+                    break;
+                }
+                makespan = next;
+                metrics.moves.increment();
+                metrics.improvement(makespan, rso::toSchedule, listener);
+                if (stop.test(makespan)) {
+                    break;
+                }
             }
-            //Selecting the best neighboor on the ListSwap
-            for (Swap swap : ListSwap) {
-                ResourceOrder current = rso_tmp.copy();
-                swap.applyOn(current);
-                Schedule currentSchedule = current.toSchedule();
-
-                if (currentSchedule != null) {
-                    int makespan_cur = currentSchedule.makespan();
-
-                    if (makespan_optimal > makespan_cur) {
-                        rso_optimal = current;
-                        makespan_optimal = makespan_cur;
-                        new_Voisin = true;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+
+        metrics.decodes.increment();
+        return new Result(instance, rso.toSchedule(), cause, metrics);
+    }
+
+    /**
+     * Moves the given order (whose heads and tails are up to date) to an improving neighbour, in place.
+     * Neighbours are moves generated by the given neighbourhood, estimates being written in the given buffer.
+     * They are only estimated with the heads and tails of the order (see ResourceOrder.estimateMove()): the ones
+     * estimated better than the order are tried by increasing estimate (or in order, for FIRST_IMPROVEMENT) and the
+     * first one that really improves is kept. Neighbours whose makespan is in the cache are only evaluated if
+     * they improve the current order.
+     * Returns the makespan of the new order, or the current makespan if no neighbour improves it.
+     */
+    int step(ResourceOrder rso, int makespan, Neighbourhood neighbourhood, int[] estimates, MakespanCache cache, SolverMetrics metrics, Budget.Checker check) {
+        int size = neighbourhood.generate(rso, makespan);
+        metrics.neighbours.add(size);
+        check.evaluated(size);
+        for (int i = 0; i < size; i++) {
+            estimates[i] = rso.estimateMove(neighbourhood.machine(i), neighbourhood.from(i), neighbourhood.to(i));
+        }
+
+        while (true) {
+            //Selecting the neighboor with the best estimate that has not been tried yet
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                if (estimates[i] < makespan && (best == -1 || estimates[i] < estimates[best])) {
+                    best = i;
+                    if (strategy == Strategy.FIRST_IMPROVEMENT) {
+                        break;
                     }
                 }
             }
+            if (best == -1) {
+                return makespan;
+            }
+            int machine = neighbourhood.machine(best);
+            int from = neighbourhood.from(best);
+            int to = neighbourhood.to(best);
+            estimates[best] = Integer.MAX_VALUE;
+            long hash = rso.hashAfterMove(machine, from, to);
+            int known = cache.get(hash);
+            if (known != MakespanCache.NOT_FOUND && known >= makespan) {
+                continue;
+            }
+            rso.move(machine, from, to);
+            int makespan_cur = rso.updateHeadsAndTails(machine, from, to);
+            metrics.decodes.increment();
+            cache.put(hash, makespan_cur == -1 ? Integer.MAX_VALUE : makespan_cur);
+            if (makespan_cur != -1 && makespan_cur < makespan) {
+                return makespan_cur;
+            }
+            //Not an improvement : undo the move, the estimates of the other neighbours are still valid
+            rso.move(machine, to, from);
+            undone(rso, machine, from, to, makespan_cur);
         }
-        return new Result(instance, rso_optimal.toSchedule(), Result.ExitCause.Blocked);
     }
+
     /**
-     * Method created in order to make other methods easier to read
-     * Returns the index of a certain task on a machine
+     * Updates the heads and tails of an order once the move (machine, from, to), evaluated to the given makespan,
+     * has been undone: incrementally, unless the move had created a cycle.
      */
-    int indexTaskOnMachine(ResourceOrder rso, int machine, Task taskObj) {
-        int index_T = -1;
-        for (int i = 0; i < rso.instance.numJobs; i++) {
-            if (rso.tasksByMachine[machine][i].equals(taskObj)) {
-                index_T = i;
-            }
+    static void undone(ResourceOrder order, int machine, int from, int to, int makespan) {
+        if (makespan == -1) {
+            order.updateHeadsAndTails();
+        } else {
+            order.updateHeadsAndTails(machine, to, from);
         }
-        return index_T;
     }
 
     /**
-     * Returns a list of all blocks of the critical path.
+     * Same as step, but the makespan of every neighbour is computed exactly, the neighbourhood being split
+     * in one contiguous chunk per scratch copy of the solution, whose heads and tails must be up to date. The selected neighbour does not depend
+     * on the timing of the threads: ties are broken by position in the neighbourhood.
+     * Only the neighbours that are not in the cache are evaluated.
      */
-    List<Block> blocksOfCriticalPath(ResourceOrder order) {
-
-        Schedule schedule = order.toSchedule(); //Creating the Schedule from the rso Order
-        List<Task> listTask = schedule.criticalPath(); // Getting the criticalPath from the schedule
-        int Index_S = -1;
-        int Index_E;
-        int currentMachine = -1;
-        ArrayList<Block> BlockList = new ArrayList<>(); //List of block returned by this method
-        for (int j = 0; j < listTask.size() - 1; j++) {
-            int task = listTask.get(j).task;
-            int job = listTask.get(j).job;
-            int machine = order.instance.machine(job, task);
-            //Here we call the method created just above
-            int index_T = indexTaskOnMachine(order, machine, listTask.get(j));
-            //Testing for the 1st iteration and to set currentMachine
-            if (currentMachine == -1 || currentMachine != machine) {
-                currentMachine = machine;
-                Index_S = index_T;
+    int parallelStep(ResourceOrder rso, int makespan, Neighbourhood neighbourhood, int[] makespans, long[] hashes, MakespanCache cache,
+                     SolverMetrics metrics, Budget.Checker check, ForkJoinPool pool, ResourceOrder[] scratch) {
+        int size = neighbourhood.generate(rso, makespan);
+        metrics.neighbours.add(size);
+        check.evaluated(size);
+        // lowest index of an improving neighbour, for FIRST_IMPROVEMENT
+        AtomicInteger firstImproving = new AtomicInteger(Integer.MAX_VALUE);
+        for (int i = 0; i < size; i++) {
+            hashes[i] = rso.hashAfterMove(neighbourhood.machine(i), neighbourhood.from(i), neighbourhood.to(i));
+            makespans[i] = cache.get(hashes[i]);
+            if (makespans[i] == MakespanCache.NOT_FOUND) {
+                makespans[i] = UNKNOWN;
+            } else if (makespans[i] < makespan) {
+                firstImproving.accumulateAndGet(i, Math::min);
             }
-            //Getting the next Task/Job/Machine/index_T for the path
-            int nextTask = listTask.get(j + 1).task;
-            int nextJob = listTask.get(j + 1).job;
-            int nextMachine = order.instance.machine(nextJob, nextTask);
-            int nextIndexTask = indexTaskOnMachine(order, nextMachine, listTask.get(j + 1));
-
-            if (nextMachine != machine) {
-                Index_E = index_T;
-                if (Index_S != Index_E) {
-                    BlockList.add(new Block(machine, Index_S, Index_E));
-                }
-            } else if (j == listTask.size() - 2) {
-                Index_E = nextIndexTask;
-                if (Index_S != Index_E) {
-                    BlockList.add(new Block(machine, Index_S, Index_E));
-                } }
+        }
+
+        int chunks = Math.min(scratch.length, size);
+        List<Evaluation> evaluations = new ArrayList<>();
+        for (int c = 0; c < chunks; c++) {
+            int from = c * size / chunks;
+            int to = (c + 1) * size / chunks;
+            evaluations.add(new Evaluation(neighbourhood, makespans, scratch[c], from, to, makespan, firstImproving, metrics));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(evaluations)));
+        for (int i = 0; i < size; i++) {
+            if (makespans[i] == UNKNOWN) {
+                // skipped by a first improvement search
+                makespans[i] = Integer.MAX_VALUE;
+            } else {
+                cache.put(hashes[i], makespans[i]);
+            }
+        }
 
+        int best = -1;
+        if (strategy == Strategy.FIRST_IMPROVEMENT) {
+            best = firstImproving.get() == Integer.MAX_VALUE ? -1 : firstImproving.get();
+        } else {
+            for (int i = 0; i < size; i++) {
+                if (makespans[i] < makespan && (best == -1 || makespans[i] < makespans[best])) {
+                    best = i;
+                }
+            }
+        }
+        if (best == -1) {
+            return makespan;
+        }
+        //Moving every copy of the solution to the selected neighbour
+        int machine = neighbourhood.machine(best);
+        int from = neighbourhood.from(best);
+        int to = neighbourhood.to(best);
+        rso.move(machine, from, to);
+        for (ResourceOrder copy : scratch) {
+            copy.move(machine, from, to);
+            copy.updateHeadsAndTails(machine, from, to);
         }
-        return BlockList;
+        metrics.decodes.increment();
+        return rso.updateHeadsAndTails(machine, from, to);
     }
 
-    /**
-     * For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood
-     */
-    List<Swap> neighbors(Block block) {
-        int Task_F = block.Task_F;
-        int Task_L = block.lastTask;
-        int machine = block.machine;
-        ArrayList<Swap> SwapList = new ArrayList<>();
-        //Testing if Last and first tasks are already neighbors
-        if((Task_L-Task_F) == 1){
-            //If so : creating 1 swap
-            SwapList.add(new Swap(machine,Task_L,Task_F));
-        }else{
-            //If not : creating 2 swap, for the task and their neigbors
-            SwapList.add(new Swap(machine,Task_F,Task_F+1));
-            SwapList.add(new Swap(machine,(Task_L-1),Task_L));
+    // makespan of a neighbour that has not been evaluated yet
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /** Computes the makespan of a range of neighbours, on a copy of the current solution. */
+    private class Evaluation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Neighbourhood neighbourhood;
+        final int[] makespans;
+        final ResourceOrder order;
+        final int from;
+        final int to;
+        final int makespan;
+        final AtomicInteger firstImproving;
+        final SolverMetrics metrics;
+
+        Evaluation(Neighbourhood neighbourhood, int[] makespans, ResourceOrder order, int from, int to, int makespan, AtomicInteger firstImproving, SolverMetrics metrics) {
+            this.neighbourhood = neighbourhood;
+            this.makespans = makespans;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.makespan = makespan;
+            this.firstImproving = firstImproving;
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++) {
+                // an improving neighbour has already been found before this one
+                if (strategy == Strategy.FIRST_IMPROVEMENT && i > firstImproving.get()) {
+                    return;
+                }
+                if (makespans[i] != UNKNOWN) {
+                    continue;
+                }
+                int machine = neighbourhood.machine(i);
+                order.move(machine, neighbourhood.from(i), neighbourhood.to(i));
+                int makespan_cur = order.updateHeadsAndTails(machine, neighbourhood.from(i), neighbourhood.to(i));
+                order.move(machine, neighbourhood.to(i), neighbourhood.from(i));
+                undone(order, machine, neighbourhood.from(i), neighbourhood.to(i), makespan_cur);
+                metrics.decodes.increment();
+                makespans[i] = makespan_cur == -1 ? Integer.MAX_VALUE : makespan_cur;
+                if (makespan_cur != -1 && makespan_cur < makespan && strategy == Strategy.FIRST_IMPROVEMENT) {
+                    firstImproving.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
         }
-        return SwapList;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Genetic algorithm on the JobNumbers encoding, with one population (island) per thread.
+ *
+ * Islands evolve independently during an epoch of a fixed number of generations. At the end of each epoch,
+ * all islands wait for each other and the best individuals of each island replace the worst ones of the
+ * next island on the ring. Each generation of an island is an iteration of the budget, but islands only stop
+ * at the end of an epoch, once they all agree to: a started epoch is always completed, even when the budget
+ * runs out or an optimal solution is found during it. For a given seed, the result thus only depends on the
+ * number of epochs completed within the budget.
+ */
+public class GeneticSolver implements Solver {
+
+    // number of islands, each evolved by its own thread
+    int islands = 4;
+    // number of individuals of each island
+    int populationSize = 50;
+    // number of generations between two migrations
+    int epochLength = 50;
+    // number of individuals sent to the next island at each migration
+    int migrants = 2;
+    // probability of mutating a child
+    double mutationRate = 0.3;
+    // maximum number of epochs, the search otherwise stops when the budget is exhausted
+    int maxEpochs = Integer.MAX_VALUE;
+    // seed of the random generators
+    long seed = 0;
+
+    public void setIslands(int islands) {
+        this.islands = islands;
+    }
+    public void setPopulationSize(int populationSize) {
+        this.populationSize = populationSize;
+    }
+    public void setEpochLength(int epochLength) {
+        this.epochLength = epochLength;
+    }
+    public void setMigrants(int migrants) {
+        this.migrants = migrants;
+    }
+    public void setMutationRate(double mutationRate) {
+        this.mutationRate = mutationRate;
+    }
+    public void setMaxEpochs(int maxEpochs) {
+        this.maxEpochs = maxEpochs;
+    }
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        // every island starts from the same greedy solution, the rest of its population being random
+        GloutonSolver glouton = new GloutonSolver();
+        glouton.setPriority("EST_LRPT");
+        SolverMetrics metrics = new SolverMetrics();
+        Result greedy = glouton.solve(instance, budget, ImprovementListener.NONE);
+        metrics.improvement(greedy.schedule.makespan(), () -> greedy.schedule, listener);
+        JobNumbers start = new ResourceOrder(greedy.schedule).toJobNumbers();
+
+        SplittableRandom generator = new SplittableRandom(seed);
+        List<Island> ring = new ArrayList<>();
+        for (int i = 0; i < islands; i++) {
+            ring.add(new Island(instance, start, generator.split(), budget.checker()));
+        }
+        metrics.decodes.add((long) islands * populationSize);
+        Epochs epochs = new Epochs(budget.checker(), LowerBound.of(instance), metrics, listener);
+        CyclicBarrier barrier = new CyclicBarrier(islands, epochs);
+        for (int i = 0; i < islands; i++) {
+            ring.get(i).connect(ring.get((i + islands - 1) % islands), barrier, epochs);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(islands);
+        try {
+            for (Future<Void> f : executor.invokeAll(ring)) {
+                f.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+
+        Island winner = ring.get(0);
+        for (Island island : ring) {
+            if (island.fitness[island.best()] < winner.fitness[winner.best()]) {
+                winner = island;
+            }
+        }
+        Result.ExitCause cause = epochs.optimal ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        metrics.stop();
+        return new Result(instance, winner.population[winner.best()].toSchedule(), cause, metrics);
+    }
+
+    /** Run by the last island reaching the barrier: decides, for all islands at once, whether to go on. */
+    private class Epochs implements Runnable {
+        // only used by the barrier action, which is never run concurrently
+        final Budget.Checker check;
+        final int lowerBound;
+        final SolverMetrics metrics;
+        final ImprovementListener listener;
+        int count = 0;
+        volatile boolean stop = false;
+        // set by the first island finding a solution whose makespan is the lower bound
+        volatile boolean optimal = false;
+
+        Epochs(Budget.Checker check, int lowerBound, SolverMetrics metrics, ImprovementListener listener) {
+            this.check = check;
+            this.lowerBound = lowerBound;
+            this.metrics = metrics;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            count++;
+            stop = optimal || count >= maxEpochs || !check.check();
+        }
+    }
+
+    private class Island implements Callable<Void> {
+        final Instance instance;
+        final SplittableRandom random;
+        final int size;
+        final Budget.Checker check;
+
+        // current and next generation, swapped after each generation
+        JobNumbers[] population;
+        JobNumbers[] offspring;
+        int[] fitness;
+        int[] offspringFitness;
+        // best makespan ever found by this island
+        int record = Integer.MAX_VALUE;
+
+        // copies of the best individuals, read by the next island on the ring
+        final int[][] outbox;
+        Island previous;
+        CyclicBarrier barrier;
+        Epochs epochs;
+
+        // buffers of the crossover
+        final int[] occurrences1;
+        final int[] occurrences2;
+        final int[] counts;
+
+        Island(Instance instance, JobNumbers start, SplittableRandom random, Budget.Checker check) {
+            this.instance = instance;
+            this.random = random;
+            this.check = check;
+            this.size = start.jobs.length;
+            this.population = new JobNumbers[populationSize];
+            this.offspring = new JobNumbers[populationSize];
+            this.fitness = new int[populationSize];
+            this.offspringFitness = new int[populationSize];
+            for (int i = 0; i < populationSize; i++) {
+                population[i] = new JobNumbers(instance);
+                offspring[i] = new JobNumbers(instance);
+                System.arraycopy(start.jobs, 0, population[i].jobs, 0, size);
+                population[i].nextToSet = size;
+                offspring[i].nextToSet = size;
+                if (i > 0) {
+                    shuffle(population[i].jobs);
+                }
+                fitness[i] = population[i].makespan();
+                record = Math.min(record, fitness[i]);
+            }
+            this.outbox = new int[migrants][size];
+            this.occurrences1 = new int[size];
+            this.occurrences2 = new int[size];
+            this.counts = new int[instance.numJobs];
+        }
+
+        void connect(Island previous, CyclicBarrier barrier, Epochs epochs) {
+            this.previous = previous;
+            this.barrier = barrier;
+            this.epochs = epochs;
+        }
+
+        @Override
+        public Void call() throws InterruptedException, BrokenBarrierException {
+            try {
+                evolve();
+            } catch (RuntimeException e) {
+                // do not leave the other islands waiting forever
+                barrier.reset();
+                throw e;
+            }
+            return null;
+        }
+
+        void evolve() throws InterruptedException, BrokenBarrierException {
+            while (true) {
+                for (int g = 0; g < epochLength; g++) {
+                    // only counted: whether to stop is decided at the barrier, for all islands at once
+                    check.next();
+                    generation();
+                }
+                // the iterations of this island are all counted before the barrier action checks the budget
+                check.check();
+                // migration: publish the best individuals, wait for all islands, then import the ones of the previous island
+                for (int i = 0; i < migrants; i++) {
+                    System.arraycopy(population[rank(i)].jobs, 0, outbox[i], 0, size);
+                }
+                barrier.await();
+                if (epochs.stop) {
+                    return;
+                }
+                for (int i = 0; i < migrants; i++) {
+                    int worst = rank(populationSize - 1 - i);
+                    System.arraycopy(previous.outbox[i], 0, population[worst].jobs, 0, size);
+                    fitness[worst] = population[worst].makespan();
+                }
+                epochs.metrics.decodes.add(migrants);
+                check.evaluated(migrants);
+                // the outboxes are overwritten at the end of the next epoch only once every island has read them
+                barrier.await();
+            }
+        }
+
+        /** Replaces the population by its children, the best individual being kept. */
+        void generation() {
+            int best = best();
+            System.arraycopy(population[best].jobs, 0, offspring[0].jobs, 0, size);
+            offspringFitness[0] = fitness[best];
+            int mutations = 0;
+            for (int i = 1; i < populationSize; i++) {
+                JobNumbers child = offspring[i];
+                crossover(population[tournament()].jobs, population[tournament()].jobs, child.jobs);
+                if (random.nextDouble() < mutationRate) {
+                    mutate(child.jobs);
+                    mutations++;
+                }
+                offspringFitness[i] = child.makespan();
+                if (offspringFitness[i] < record) {
+                    record = offspringFitness[i];
+                    epochs.metrics.improvement(record, child::toSchedule, epochs.listener);
+                }
+                if (offspringFitness[i] == epochs.lowerBound) {
+                    epochs.optimal = true;
+                }
+            }
+            epochs.metrics.decodes.add(populationSize - 1);
+            check.evaluated(populationSize - 1);
+            epochs.metrics.moves.add(mutations);
+            JobNumbers[] individuals = population;
+            population = offspring;
+            offspring = individuals;
+            int[] f = fitness;
+            fitness = offspringFitness;
+            offspringFitness = f;
+        }
+
+        /** Binary tournament. */
+        int tournament() {
+            int a = random.nextInt(populationSize);
+            int b = random.nextInt(populationSize);
+            return fitness[a] <= fitness[b] ? a : b;
+        }
+
+        /**
+         * Precedence preserving crossover: the child is built by repeatedly taking, from a randomly chosen parent,
+         * the leftmost job occurrence not yet in the child. The k^th occurrence of a job in each parent stands for
+         * the k^th task of the job, so the relative order of tasks common to both parents is kept.
+         */
+        void crossover(int[] parent1, int[] parent2, int[] child) {
+            countOccurrences(parent1, occurrences1);
+            countOccurrences(parent2, occurrences2);
+            Arrays.fill(counts, 0);
+            int i1 = 0;
+            int i2 = 0;
+            for (int i = 0; i < size; i++) {
+                // skip the tasks already taken from the other parent
+                while (i1 < size && occurrences1[i1] < counts[parent1[i1]]) i1++;
+                while (i2 < size && occurrences2[i2] < counts[parent2[i2]]) i2++;
+                int job = (i2 == size || (i1 < size && random.nextBoolean())) ? parent1[i1++] : parent2[i2++];
+                child[i] = job;
+                counts[job]++;
+            }
+        }
+
+        /** Index of each element of the array among the occurrences of the same job. */
+        void countOccurrences(int[] jobs, int[] occurrences) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                occurrences[i] = counts[jobs[i]]++;
+            }
+        }
+
+        /** Swaps two elements, or moves one element to another position. */
+        void mutate(int[] jobs) {
+            int from = random.nextInt(size);
+            int to = random.nextInt(size);
+            int job = jobs[from];
+            if (random.nextBoolean()) {
+                jobs[from] = jobs[to];
+                jobs[to] = job;
+            } else if (from < to) {
+                System.arraycopy(jobs, from + 1, jobs, from, to - from);
+                jobs[to] = job;
+            } else {
+                System.arraycopy(jobs, to, jobs, to + 1, from - to);
+                jobs[to] = job;
+            }
+        }
+
+        /** Index of the best individual, ties going to the lowest index. */
+        int best() {
+            return rank(0);
+        }
+
+        /** Index of the individual of the given rank (0 being the best), ties going to the lowest index. */
+        int rank(int r) {
+            // populations are small: a selection by counting is enough
+            for (int i = 0; i < populationSize; i++) {
+                int before = 0;
+                for (int j = 0; j < populationSize; j++) {
+                    if (fitness[j] < fitness[i] || (fitness[j] == fitness[i] && j < i)) before++;
+                }
+                if (before == r) return i;
+            }
+            throw new IllegalStateException();
+        }
+
+        /** Fisher–Yates shuffle */
+        void shuffle(int[] array) {
+            for (int i = array.length - 1; i > 0; i--) {
+                int index = random.nextInt(i + 1);
+                int tmp = array[index];
+                array[index] = array[i];
+                array[i] = tmp;
+            }
+        }
+    }
+}
@@ -1,199 +1,138 @@
 package jobshop.solvers;
 
 
+import jobshop.Budget;
+import jobshop.ImprovementListener;
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
+import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.SolverMetrics;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Task;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
 public class GloutonSolver implements Solver {
 
     String priority = null;
+    PriorityRule rule = null;
+
+    /** Selects one of the predefined rules by name (SPT, LPT, SRPT, LRPT, EST_SPT, EST_LRPT). */
     public void setPriority(String prio) {
+        rule = PriorityRule.valueOf(prio);
         priority = prio;
     }
+    /** Name of the rule, null for a rule that is not one of the predefined ones. */
     public String getPriority(){return priority;}
 
+    public void setPriorityRule(PriorityRule rule) {
+        this.rule = rule;
+        this.priority = PriorityRule.nameOf(rule);
+    }
+    public PriorityRule getPriorityRule(){return rule;}
+
 
     @Override
-    public Result solve(Instance instance, long deadline) {
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        SolverMetrics metrics = new SolverMetrics();
         ResourceOrder rso = new ResourceOrder(instance);
-        ArrayList<Task> Task_feasible = new ArrayList<>();
-
+        int numJobs = instance.numJobs;
+        int numTasks = instance.numTasks;
+        PriorityRule rule = this.rule == null ? PriorityRule.SPT : this.rule;
+        boolean dynamic = rule.usesEarliestStart();
+
+        // duration of each task plus the durations of the following tasks of its job
+        int[] remainingWork = new int[numJobs * numTasks];
+        for (int j = 0; j < numJobs; j++) {
+            int work = 0;
+            for (int t = numTasks - 1; t >= 0; t--) {
+                work += instance.duration(j, t);
+                remainingWork[j * numTasks + t] = work;
+            }
+        }
 
-        int[] startTimes = new int[instance.numJobs];
-        int[] timeToEnd = new int[instance.numJobs];
+        // for each job, the next task to schedule and the time at which it can start on the job
+        int[] nextTask = new int[numJobs];
+        int[] jobTime = new int[numJobs];
+        // for each machine, the time at which it becomes free
         int[] machineTime = new int[instance.numMachines];
-        Arrays.fill(startTimes,0);
-        Arrays.fill(machineTime,0);
 
-        for (int i = 0; i < instance.numJobs; i++) {
-            timeToEnd[i] = 0;
-            for (int j = 0; j < instance.numTasks; j++) {
-                timeToEnd[i] += instance.duration(i, j);
+        // for each machine, the jobs whose next task runs on it, as linked lists
+        // (only used to update the earliest start times of the tasks when a machine gets busier)
+        int[] firstWaiting = new int[instance.numMachines];
+        int[] nextWaiting = new int[numJobs];
+        int[] previousWaiting = new int[numJobs];
+        Arrays.fill(firstWaiting, -1);
+
+        //Init : the first task of every job can be scheduled
+        JobHeap feasible = new JobHeap(numJobs);
+        for (int job = 0; job < numJobs; job++) {
+            feasible.add(job, priority(rule, instance, remainingWork, nextTask, jobTime, machineTime, job));
+            if (dynamic) {
+                addWaiting(firstWaiting, nextWaiting, previousWaiting, instance.machine(job, 0), job);
             }
         }
 
-        //Init
-        for(int job = 0; job < instance.numJobs; job++){
-            Task task = new Task(job,0);
-            Task_feasible.add(task);
-        }
-
         //Loop
-
-        while(!Task_feasible.isEmpty()) {
-            int duration_tmp = 0;
-            int duration_current = 0;
-            int duration;
-            int dateDebut;
-            int best_dateDebut = -1;
-            ArrayList<Task> Array_Task_tmp = new ArrayList<>();
-            Task Task_tmp = null;
-
-            for (Task current : Task_feasible) {
-
-
-                int currentJob = current.job;
-                if (Task_tmp == null) {
-                    Task_tmp = current;
-                } else {
-
-
-                    switch (priority) {
-
-                        case "SPT":
-                            if (instance.duration(Task_tmp) >= instance.duration(current)) {
-                                Task_tmp = current;
-                            }
-                            break;
-                        case "LRPT":
-                            for (int y = 0; y < instance.numTasks; y++) {
-                                duration_tmp += instance.duration(Task_tmp.job, y);
-                            }
-                            for (int y = 0; y < instance.numTasks; y++) {
-                                duration_current += instance.duration(current.job, y);
-
-                            }
-                            if (duration_tmp <= duration_current) {
-                                Task_tmp = current;
-                            }
-                            break;
-                        case "LPT":
-                            if (instance.duration(Task_tmp) <= instance.duration(current)) {
-                                Task_tmp = current;
-                            }
-                            break;
-                        case "SRPT":
-                            for (int y = 0; y < instance.numTasks; y++) {
-                                duration_tmp += instance.duration(Task_tmp.job, y);
-                            }
-                            for (int y = 0; y < instance.numTasks; y++) {
-                                duration_current += instance.duration(current.job, y);
-
-                            }
-                            if (duration_tmp >= duration_current) {
-                                Task_tmp = current;
-                            }
-                            break;
-
-                        case "EST_SPT":
-                            currentJob = current.job;
-                            Task_tmp = null;
-
-                            if (best_dateDebut == -1) {
-                                best_dateDebut = Math.max(startTimes[currentJob], machineTime[instance.machine(current)]);
-                                Array_Task_tmp.add(current);
-
-                            } else {
-                                dateDebut = Math.max(startTimes[currentJob], machineTime[instance.machine(current)]);
-                                if (dateDebut == best_dateDebut) {
-                                    Array_Task_tmp.add(current);
-                                }
-                                if (dateDebut < best_dateDebut) {
-                                    Array_Task_tmp.clear();
-                                    Array_Task_tmp.add(current);
-                                    best_dateDebut = dateDebut;
-                                }
-                            }
-
-
-                            int shortest_Duration = -1;
-
-                            for (Task current_tmp : Array_Task_tmp) {
-
-                                if (shortest_Duration == -1) {
-                                    shortest_Duration = instance.duration(current_tmp);
-                                    Task_tmp = current_tmp;
-                                } else {
-                                    duration = instance.duration(current_tmp);
-                                    if (duration < shortest_Duration) {
-                                        Task_tmp = current_tmp;
-                                        shortest_Duration = duration;
-                                    }
-                                }
-
-                            }
-
-                            break;
-                        case "EST_LRPT":
-                            duration = 0;
-                            Task Task2_tmp = null;
-
-                            if (best_dateDebut == -1) {
-                                best_dateDebut = Math.max(startTimes[currentJob], machineTime[instance.machine(current)]);
-                                Array_Task_tmp.add(current);
-
-                            } else {
-                                dateDebut = Math.max(startTimes[currentJob], machineTime[instance.machine(current)]);
-                                if (dateDebut == best_dateDebut) {
-                                    Array_Task_tmp.add(current);
-                                }
-                                if (dateDebut < best_dateDebut) {
-                                    Array_Task_tmp.clear();
-                                    Array_Task_tmp.add(current);
-                                    best_dateDebut = dateDebut;
-                                }
-                            }
-
-
-                            for (Task task : Array_Task_tmp) {
-                                int currentJob_tmp = task.job;
-                                if (Task2_tmp == null) {
-                                    Task2_tmp = task;
-                                    duration = timeToEnd[currentJob_tmp];
-                                } else if (duration < timeToEnd[currentJob_tmp]) {
-                                    Task2_tmp = task;
-                                    duration = timeToEnd[currentJob_tmp];
-                                }
-                            }
-                            break;
-                        default:
-                            break;
-                    }
+        while (!feasible.isEmpty()) {
+            int job = feasible.poll();
+            int task = nextTask[job];
+            int rsc = instance.machine(job, task);
+            rso.addTask(rsc, new Task(job, task));
+
+            int end = Math.max(jobTime[job], machineTime[rsc]) + instance.duration(job, task);
+            jobTime[job] = end;
+            machineTime[rsc] = end;
+            nextTask[job]++;
+
+            if (dynamic) {
+                removeWaiting(firstWaiting, nextWaiting, previousWaiting, rsc, job);
+                // the tasks waiting for this machine cannot start before it is free
+                for (int other = firstWaiting[rsc]; other != -1; other = nextWaiting[other]) {
+                    feasible.update(other, priority(rule, instance, remainingWork, nextTask, jobTime, machineTime, other));
                 }
             }
-
-
-
-            int rsc = instance.machine(Task_tmp);
-            int job = Task_tmp.job;
-            int task = Task_tmp.task;
-            rso.addTask(rsc, Task_tmp);
-            Task_feasible.remove(Task_tmp);
-
-
-            if (instance.numTasks-1 > Task_tmp.task) {
-                Task_feasible.add(new Task(job, task + 1));
+            if (nextTask[job] < numTasks) {
+                feasible.add(job, priority(rule, instance, remainingWork, nextTask, jobTime, machineTime, job));
+                if (dynamic) {
+                    addWaiting(firstWaiting, nextWaiting, previousWaiting, instance.machine(job, nextTask[job]), job);
+                }
             }
         }
-        return new Result(instance, rso.toSchedule(),Result.ExitCause.Blocked);
+        Schedule schedule = rso.toSchedule();
+        metrics.decodes.increment();
+        metrics.improvement(schedule.makespan(), () -> schedule, listener);
+        metrics.stop();
+        boolean optimal = schedule.makespan() == LowerBound.of(instance);
+        return new Result(instance, schedule, optimal ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Blocked, metrics);
     }
-}
 
+    /** Priority of the next task of the given job. */
+    private static long priority(PriorityRule rule, Instance instance, int[] remainingWork, int[] nextTask, int[] jobTime, int[] machineTime, int job) {
+        int task = nextTask[job];
+        int earliestStart = Math.max(jobTime[job], machineTime[instance.machine(job, task)]);
+        return rule.priority(earliestStart, instance.duration(job, task), remainingWork[job * instance.numTasks + task]);
+    }
 
+    private static void addWaiting(int[] first, int[] next, int[] previous, int machine, int job) {
+        previous[job] = -1;
+        next[job] = first[machine];
+        if (first[machine] != -1) {
+            previous[first[machine]] = job;
+        }
+        first[machine] = job;
+    }
 
+    private static void removeWaiting(int[] first, int[] next, int[] previous, int machine, int job) {
+        if (previous[job] == -1) {
+            first[machine] = next[job];
+        } else {
+            next[previous[job]] = next[job];
+        }
+        if (next[job] != -1) {
+            previous[next[job]] = previous[job];
+        }
+    }
+}
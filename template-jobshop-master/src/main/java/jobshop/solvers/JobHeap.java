@@ -0,0 +1,98 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of jobs, each with a priority. Jobs are indexed so that the priority of a job
+ * in the heap can be changed in O(log n). Ties are broken by job number.
+ */
+final class JobHeap {
+
+    // jobs in the heap, heap[0] being the one with the smallest priority
+    private final int[] heap;
+    // index of each job in heap, -1 if the job is not in the heap
+    private final int[] positions;
+    private final long[] priorities;
+    private int size = 0;
+
+    JobHeap(int numJobs) {
+        heap = new int[numJobs];
+        positions = new int[numJobs];
+        priorities = new long[numJobs];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int job) {
+        return positions[job] != -1;
+    }
+
+    void add(int job, long priority) {
+        priorities[job] = priority;
+        heap[size] = job;
+        positions[job] = size;
+        siftUp(size++);
+    }
+
+    /** Changes the priority of a job of the heap. */
+    void update(int job, long priority) {
+        long previous = priorities[job];
+        priorities[job] = priority;
+        if(priority < previous)
+            siftUp(positions[job]);
+        else
+            siftDown(positions[job]);
+    }
+
+    /** Removes and returns the job with the smallest priority. */
+    int poll() {
+        int job = heap[0];
+        positions[job] = -1;
+        size--;
+        if(size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return job;
+    }
+
+    private boolean before(int job1, int job2) {
+        return priorities[job1] < priorities[job2] || (priorities[job1] == priorities[job2] && job1 < job2);
+    }
+
+    private void siftUp(int i) {
+        int job = heap[i];
+        while(i > 0) {
+            int parent = (i - 1) / 2;
+            if(!before(job, heap[parent]))
+                break;
+            heap[i] = heap[parent];
+            positions[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = job;
+        positions[job] = i;
+    }
+
+    private void siftDown(int i) {
+        int job = heap[i];
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && before(heap[child + 1], heap[child]))
+                child++;
+            if(!before(heap[child], job))
+                break;
+            heap[i] = heap[child];
+            positions[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = job;
+        positions[job] = i;
+    }
+}
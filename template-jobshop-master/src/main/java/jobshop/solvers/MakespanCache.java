@@ -0,0 +1,80 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of the makespans of already evaluated solutions, indexed by their 64 bits hash
+ * (see ResourceOrder.hash()). Two different solutions with the same hash are considered equal.
+ *
+ * The table is open addressed: a hash can only be stored in the BUCKET slots of its bucket, and when they are
+ * all taken the oldest entry of the bucket is evicted. Everything is kept in primitive arrays allocated once.
+ * This class is not thread safe.
+ */
+class MakespanCache {
+
+    static final int NOT_FOUND = -1;
+
+    // number of slots of a bucket
+    private static final int BUCKET = 4;
+
+    private final long[] hashes;
+    private final int[] makespans;
+    // insertion date of each entry, 0 for empty slots
+    private final int[] ages;
+    private final int bucketMask;
+    private int clock = 0;
+
+    /** Creates a cache holding at least the given number of entries. */
+    MakespanCache(int capacity) {
+        int buckets = Integer.highestOneBit(Math.max(1, (capacity + BUCKET - 1) / BUCKET - 1)) << 1;
+        this.hashes = new long[buckets * BUCKET];
+        this.makespans = new int[buckets * BUCKET];
+        this.ages = new int[buckets * BUCKET];
+        this.bucketMask = buckets - 1;
+    }
+
+    private int bucket(long hash) {
+        // the low bits of a Zobrist hash are as random as the high ones
+        return ((int) (hash ^ (hash >>> 32)) & bucketMask) * BUCKET;
+    }
+
+    /** Removes all entries, in a time proportional to the capacity. */
+    void clear() {
+        Arrays.fill(ages, 0);
+        clock = 0;
+    }
+
+    /** Makespan stored for this hash, or NOT_FOUND. */
+    int get(long hash) {
+        int first = bucket(hash);
+        for (int i = first; i < first + BUCKET; i++) {
+            if (ages[i] != 0 && hashes[i] == hash) {
+                return makespans[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /** Stores the makespan of the solution with this hash, evicting the oldest entry of its bucket if needed. */
+    void put(long hash, int makespan) {
+        if (++clock == 0) {
+            // after 2^32 insertions, start again with an empty cache rather than mixing up ages
+            Arrays.fill(ages, 0);
+            clock = 1;
+        }
+        int first = bucket(hash);
+        int slot = first;
+        for (int i = first; i < first + BUCKET; i++) {
+            if (ages[i] != 0 && hashes[i] == hash) {
+                slot = i;
+                break;
+            }
+            if (Integer.compareUnsigned(ages[i], ages[slot]) < 0) {
+                slot = i;
+            }
+        }
+        hashes[slot] = hash;
+        makespans[slot] = makespan;
+        ages[slot] = clock;
+    }
+}
@@ -0,0 +1,185 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+
+/**
+ * Generates the neighbourhood of a ResourceOrder, from its heads and tails, in buffers allocated once:
+ * generating moves allocates nothing, so that local searches can use it at every iteration.
+ *
+ * A move (machine, from, to) takes the task at index from of the machine and puts it at index to, the tasks
+ * in between being shifted by one position. When from and to are adjacent, the move is a swap.
+ * This class is not thread safe, but once generated the moves can be read by several threads.
+ */
+public class Neighbourhood {
+
+    public enum Type {
+        /** Swaps of two adjacent tasks of a block of a critical path (van Laarhoven, Aarts and Lenstra) */
+        N1,
+        /** Swaps of the first two and of the last two tasks of each block of a critical path (Nowicki and Smutnicki) */
+        N5,
+        /**
+         * Moves of a task of a block of a critical path to the start or the end of the block, the ones that
+         * could create a cycle being left out (Balas and Vazacopoulos)
+         */
+        N6
+    }
+
+    final Instance instance;
+    final Type type;
+
+    // tasks of the critical path, from the first one to the last one
+    private final int[] path;
+    // moves, as (machine, from, to) triples
+    private final int[] moves;
+    private int size = 0;
+
+    public Neighbourhood(Instance instance, Type type) {
+        this.instance = instance;
+        this.type = type;
+        int numTasks = instance.numJobs * instance.numTasks;
+        this.path = new int[numTasks];
+        // there are less moves in a block than twice its number of tasks
+        this.moves = new int[3 * 2 * numTasks];
+    }
+
+    /** Largest possible number of moves. */
+    public int capacity() {
+        return moves.length / 3;
+    }
+
+    /** Number of moves of the last generated neighbourhood. */
+    public int size() {
+        return size;
+    }
+
+    public int machine(int k) {
+        return moves[3 * k];
+    }
+    public int from(int k) {
+        return moves[3 * k + 1];
+    }
+    public int to(int k) {
+        return moves[3 * k + 2];
+    }
+
+    /** True if the move is a swap of two adjacent tasks. */
+    public boolean isSwap(int k) {
+        return Math.abs(from(k) - to(k)) == 1;
+    }
+
+    /**
+     * Generates the moves of the given order, whose heads and tails must be up to date and whose makespan is given.
+     * Returns their number. Only the tasks of a critical path are read: it takes a time proportional to its length.
+     */
+    public int generate(ResourceOrder order, int makespan) {
+        size = 0;
+        int length = criticalPath(order);
+        int numTasks = instance.numTasks;
+        int first = 0;
+        for (int i = 1; i <= length; i++) {
+            // a block ends where the path changes machine
+            if (i < length && instance.machine(path[i]) == instance.machine(path[first])) {
+                continue;
+            }
+            if (i - first >= 2) {
+                int machine = instance.machine(path[first]);
+                int start = order.positionOf(path[first] / numTasks, path[first] % numTasks);
+                int end = order.positionOf(path[i - 1] / numTasks, path[i - 1] % numTasks);
+                if (type == Type.N1) {
+                    for (int index = start; index < end; index++) {
+                        add(machine, index, index + 1);
+                    }
+                } else if (type == Type.N5) {
+                    blockSwaps(machine, start, end);
+                } else {
+                    blockMoves(order, machine, start, end);
+                }
+            }
+            first = i;
+        }
+        return size;
+    }
+
+    private void add(int machine, int from, int to) {
+        moves[3 * size] = machine;
+        moves[3 * size + 1] = from;
+        moves[3 * size + 2] = to;
+        size++;
+    }
+
+    /** N5 moves of the block going from index start to index end of the machine. */
+    private void blockSwaps(int machine, int start, int end) {
+        add(machine, start, start + 1);
+        if (end - start > 1) {
+            add(machine, end - 1, end);
+        }
+    }
+
+    /**
+     * N6 moves of the block going from index start to index end of the machine. A task v moved before the first
+     * task u cannot create a cycle if the predecessor of v on its job ends before u, since a path from a task of the
+     * block to v would go through this predecessor. Symmetrically for a task moved after the last one, with tails.
+     */
+    private void blockMoves(ResourceOrder order, int machine, int start, int end) {
+        int numTasks = instance.numTasks;
+        int u = order.taskId(machine, start);
+        int endU = order.head(u) + instance.duration(u);
+        for (int i = start + 1; i <= end; i++) {
+            int v = order.taskId(machine, i);
+            if (i == start + 1 || v % numTasks == 0 || order.head(v - 1) < endU) {
+                add(machine, i, start);
+            }
+        }
+        int w = order.taskId(machine, end);
+        int tailW = instance.duration(w) + order.tail(w);
+        for (int i = start; i < end; i++) {
+            if (i == start && end == start + 1) {
+                // already moved backward
+                continue;
+            }
+            int v = order.taskId(machine, i);
+            if (i == end - 1 || (v + 1) % numTasks == 0 || order.tail(v + 1) < tailW) {
+                add(machine, i, end);
+            }
+        }
+    }
+
+    /**
+     * Fills path with a critical path of the order and returns its length. This is the path of
+     * Schedule.criticalPathIds(), found with the heads of the order instead of a decoded schedule.
+     */
+    private int criticalPath(ResourceOrder order) {
+        int numTasks = instance.numTasks;
+        // last task of the first job ending at the makespan
+        int last = -1;
+        for (int j = 0; j < instance.numJobs; j++) {
+            int id = j * numTasks + numTasks - 1;
+            if (last == -1 || order.head(id) + instance.duration(id) > order.head(last) + instance.duration(last)) {
+                last = id;
+            }
+        }
+        int length = 0;
+        for (int id = last; id != -1; id = criticalPredecessor(order, id)) {
+            length++;
+        }
+        int i = length;
+        for (int id = last; id != -1; id = criticalPredecessor(order, id)) {
+            path[--i] = id;
+        }
+        return length;
+    }
+
+    /** Task whose end sets the head of the given one, the job predecessor being preferred; -1 if it starts at 0. */
+    private int criticalPredecessor(ResourceOrder order, int id) {
+        int head = order.head(id);
+        if (head == 0) {
+            return -1;
+        }
+        int numTasks = instance.numTasks;
+        if (id % numTasks != 0 && order.head(id - 1) + instance.duration(id - 1) == head) {
+            return id - 1;
+        }
+        return order.taskId(instance.machine(id), order.positionOf(id / numTasks, id % numTasks) - 1);
+    }
+}
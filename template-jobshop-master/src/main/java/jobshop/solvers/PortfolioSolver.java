@@ -0,0 +1,147 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the GloutonSolver of every priority rule, followed by a descent, concurrently.
+ * The best makespan found so far is shared between the workers so that descents lagging too far behind
+ * it are abandoned, leaving the cores to the other ones.
+ */
+public class PortfolioSolver implements Solver {
+
+    // priority rules of the portfolio, one worker each
+    String[] priorities = {"SPT", "LPT", "SRPT", "LRPT", "EST_SPT", "EST_LRPT"};
+    // number of threads running the workers
+    int threads = Runtime.getRuntime().availableProcessors();
+    // a descent is abandoned when its makespan exceeds the best one times this ratio
+    double cutoff = 1.2;
+
+    public void setPriorities(String... priorities) {
+        for (String priority : priorities) {
+            PriorityRule.valueOf(priority);
+        }
+        this.priorities = priorities;
+    }
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    public void setCutoff(double cutoff) {
+        this.cutoff = cutoff;
+    }
+
+    /** Result of the portfolio, with the priority rule that led to the best schedule. */
+    public static class PortfolioResult extends Result {
+        public final String winner;
+
+        public PortfolioResult(Instance instance, Schedule schedule, ExitCause cause, SolverMetrics metrics, String winner) {
+            super(instance, schedule, cause, metrics);
+            this.winner = winner;
+        }
+    }
+
+    @Override
+    public PortfolioResult solve(Instance instance, long deadline) {
+        return solve(instance, new Budget(deadline), ImprovementListener.NONE);
+    }
+
+    @Override
+    public PortfolioResult solve(Instance instance, Budget budget, ImprovementListener listener) {
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        SolverMetrics metrics = new SolverMetrics();
+        int lowerBound = LowerBound.of(instance);
+        List<Worker> workers = new ArrayList<>();
+        for (String priority : priorities) {
+            workers.add(new Worker(instance, priority, best, lowerBound, metrics, budget, listener));
+        }
+
+        List<Result> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, workers.size())));
+        try {
+            for (Future<Result> f : executor.invokeAll(workers)) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+
+        // the winner is chosen once all workers are done, ties going to the first rule of the portfolio
+        int winner = 0;
+        for (int i = 1; i < results.size(); i++) {
+            if (results.get(i).schedule.makespan() < results.get(winner).schedule.makespan()) {
+                winner = i;
+            }
+        }
+        Result.ExitCause cause = budget.isExhausted() ? Result.ExitCause.Timeout : Result.ExitCause.Blocked;
+        if (results.get(winner).schedule.makespan() == lowerBound) {
+            cause = Result.ExitCause.ProvedOptimal;
+        }
+        metrics.stop();
+        return new PortfolioResult(instance, results.get(winner).schedule, cause, metrics, priorities[winner]);
+    }
+
+    /** Builds a solution with one priority rule then improves it with a descent. */
+    private class Worker implements Callable<Result> {
+        final Instance instance;
+        final String priority;
+        final AtomicInteger best;
+        final int lowerBound;
+        // shared by all workers
+        final SolverMetrics metrics;
+        final Budget budget;
+        final ImprovementListener listener;
+
+        Worker(Instance instance, String priority, AtomicInteger best, int lowerBound, SolverMetrics metrics, Budget budget, ImprovementListener listener) {
+            this.instance = instance;
+            this.priority = priority;
+            this.best = best;
+            this.lowerBound = lowerBound;
+            this.metrics = metrics;
+            this.budget = budget;
+            this.listener = listener;
+        }
+
+        @Override
+        public Result call() {
+            GloutonSolver glouton = new GloutonSolver();
+            glouton.setPriority(priority);
+            Result start = glouton.solve(instance, budget, ImprovementListener.NONE);
+            metrics.restarts.increment();
+            metrics.decodes.increment();
+            best.accumulateAndGet(start.schedule.makespan(), Math::min);
+            metrics.improvement(start.schedule.makespan(), () -> start.schedule, listener);
+            if (lagging(start.schedule.makespan())) {
+                return start;
+            }
+
+            DescentSolver descent = new DescentSolver();
+            // the descent passes its improvements to the metrics, and thus to the listener
+            return descent.descend(instance, start.schedule, budget.checker(), makespan -> {
+                best.accumulateAndGet(makespan, Math::min);
+                return lagging(makespan);
+            }, metrics, listener);
+        }
+
+        /** True if this worker is too far behind the best one, or if another worker has found an optimal solution. */
+        private boolean lagging(int makespan) {
+            return makespan > cutoff * best.get() || best.get() == lowerBound;
+        }
+    }
+}
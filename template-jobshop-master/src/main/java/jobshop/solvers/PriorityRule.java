@@ -0,0 +1,74 @@
+package jobshop.solvers;
+
+/**
+ * Priority rule of the GloutonSolver : among the tasks that can be scheduled,
+ * the one with the smallest priority is scheduled first (ties are broken by job number).
+ */
+public interface PriorityRule {
+
+    /**
+     * Priority of a task that can be scheduled.
+     *
+     * @param earliestStart earliest start time of the task, given the tasks already scheduled
+     * @param duration duration of the task
+     * @param remainingWork duration of the task plus the durations of all following tasks of its job
+     */
+    long priority(int earliestStart, int duration, int remainingWork);
+
+    /** True if the priority depends on the earliest start time, which must then be kept up to date. */
+    default boolean usesEarliestStart() {
+        return false;
+    }
+
+    /** Shortest Processing Time */
+    PriorityRule SPT = (earliestStart, duration, remainingWork) -> duration;
+    /** Longest Processing Time */
+    PriorityRule LPT = (earliestStart, duration, remainingWork) -> -duration;
+    /** Shortest Remaining Processing Time */
+    PriorityRule SRPT = (earliestStart, duration, remainingWork) -> remainingWork;
+    /** Longest Remaining Processing Time */
+    PriorityRule LRPT = (earliestStart, duration, remainingWork) -> -remainingWork;
+    /** Earliest Start Time, ties broken with SPT */
+    PriorityRule EST_SPT = earliestStartThen(SPT);
+    /** Earliest Start Time, ties broken with LRPT */
+    PriorityRule EST_LRPT = earliestStartThen(LRPT);
+
+    /** Rule selecting the tasks with the earliest start time first, ties being broken by the given rule. */
+    static PriorityRule earliestStartThen(PriorityRule tieBreak) {
+        return new PriorityRule() {
+            @Override
+            public long priority(int earliestStart, int duration, int remainingWork) {
+                // the priority of the tie break rule is shifted to be non negative and put in the lower bits
+                return ((long) earliestStart << 32) + (tieBreak.priority(earliestStart, duration, remainingWork) - Integer.MIN_VALUE);
+            }
+
+            @Override
+            public boolean usesEarliestStart() {
+                return true;
+            }
+        };
+    }
+
+    /** Name of the given rule if it is one of the predefined ones, null otherwise. */
+    static String nameOf(PriorityRule rule) {
+        for (String name : new String[]{"SPT", "LPT", "SRPT", "LRPT", "EST_SPT", "EST_LRPT"}) {
+            if (valueOf(name) == rule) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /** Returns the rule with the given name (SPT, LPT, SRPT, LRPT, EST_SPT or EST_LRPT). */
+    static PriorityRule valueOf(String name) {
+        switch (name) {
+            case "SPT": return SPT;
+            case "LPT": return LPT;
+            case "SRPT": return SRPT;
+            case "LRPT": return LRPT;
+            case "EST_SPT": return EST_SPT;
+            case "EST_LRPT": return EST_LRPT;
+            default: throw new IllegalArgumentException("Unknown priority rule: " + name);
+        }
+    }
+}
@@ -3,37 +3,161 @@ package jobshop.solvers;
 import jobshop.*;
 import jobshop.encodings.JobNumbers;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RandomSolver implements Solver {
 
+    // number of threads sampling solutions
+    int threads = 1;
+    // seed of the random generators
+    long seed = 0;
+    // maximum number of solutions sampled by each thread, sampling otherwise stops when the budget is exhausted
+    long samplesPerThread = Long.MAX_VALUE;
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    public void setSamplesPerThread(long samplesPerThread) {
+        this.samplesPerThread = samplesPerThread;
+    }
+
+    /**
+     * Samples random solutions on several threads, each with its own generator split from the seed.
+     * For a given seed, number of threads and number of samples per thread, the result is always the same.
+     *
+     * The k^th sample of every thread makes the k^th round. When a thread finds an optimal solution, the others
+     * still finish its round, and the solution returned is the first one found with the best makespan: the one
+     * of the earliest round, ties going to the lowest thread. It therefore does not depend on the timing
+     * of the threads, unless the deadline stops them first.
+     */
     @Override
-    public Result solve(Instance instance, long deadline) {
-        Random generator = new Random(0);
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        // best makespan found so far by all samplers, only used to report improvements
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        // earliest round in which an optimal solution was found
+        AtomicLong optimalRound = new AtomicLong(Long.MAX_VALUE);
+        int lowerBound = LowerBound.of(instance);
+        SolverMetrics metrics = new SolverMetrics();
+
+        SplittableRandom generator = new SplittableRandom(seed);
+        List<Sampler> samplers = new ArrayList<>();
+        for(int i = 0 ; i < threads ; i++) {
+            samplers.add(new Sampler(instance, generator.split(), best, optimalRound, lowerBound, metrics, budget.checker(), listener));
+        }
+
+        if(threads == 1) {
+            samplers.get(0).call();
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                for(Future<Void> f : executor.invokeAll(samplers)) {
+                    f.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                executor.shutdown();
+            }
+        }
 
-        JobNumbers sol = new JobNumbers(instance);
+        Sampler winner = samplers.get(0);
+        for(Sampler sampler : samplers) {
+            if(sampler.bestMakespan < winner.bestMakespan
+                    || (sampler.bestMakespan == winner.bestMakespan && sampler.bestRound < winner.bestRound))
+                winner = sampler;
+        }
+        Result.ExitCause cause = winner.bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        metrics.stop();
+        return new Result(instance, winner.best.toSchedule(), cause, metrics);
+    }
 
-        for(int j = 0 ; j<instance.numJobs ; j++) {
-            for(int t = 0 ; t<instance.numTasks ; t++) {
-                sol.jobs[sol.nextToSet++] = j;
+    /** Samples random solutions within the budget, keeping the first one with its best makespan. */
+    private class Sampler implements Callable<Void> {
+        final SplittableRandom generator;
+        final AtomicInteger globalBest;
+        final AtomicLong optimalRound;
+        final int lowerBound;
+        // shared by all samplers
+        final SolverMetrics metrics;
+        final Budget.Checker check;
+        final ImprovementListener listener;
+        // solution being sampled and best solution of this sampler
+        final JobNumbers sol;
+        final JobNumbers best;
+        int bestMakespan = Integer.MAX_VALUE;
+        // round of the best solution
+        long bestRound;
+
+        Sampler(Instance instance, SplittableRandom generator, AtomicInteger globalBest, AtomicLong optimalRound, int lowerBound, SolverMetrics metrics, Budget.Checker check, ImprovementListener listener) {
+            this.generator = generator;
+            this.globalBest = globalBest;
+            this.optimalRound = optimalRound;
+            this.lowerBound = lowerBound;
+            this.metrics = metrics;
+            this.check = check;
+            this.listener = listener;
+            this.sol = new JobNumbers(instance);
+            this.best = new JobNumbers(instance);
+            for(int j = 0 ; j<instance.numJobs ; j++) {
+                for(int t = 0 ; t<instance.numTasks ; t++) {
+                    sol.jobs[sol.nextToSet++] = j;
+                }
             }
+            best.nextToSet = sol.nextToSet;
         }
-        Schedule best = sol.toSchedule();
-        while(deadline - System.currentTimeMillis() > 1) {
-            shuffleArray(sol.jobs, generator);
-            Schedule s = sol.toSchedule();
-            if(s.makespan() < best.makespan()) {
-                best = s;
+
+        /** Draws samples until all are drawn, the budget is exhausted or the round of an optimal solution is over. */
+        @Override
+        public Void call() {
+            offer(sol.makespan(), 0);
+            for(long round = 1 ; round < samplesPerThread ; round++) {
+                if(round > optimalRound.get())
+                    return null;
+                if(!check.next())
+                    return null;
+                shuffleArray(sol.jobs, generator);
+                offer(sol.makespan(), round);
             }
+            return null;
         }
 
+        /** Keeps the current solution if it improves the best one of this sampler. */
+        private void offer(int makespan, long round) {
+            metrics.decodes.increment();
+            check.evaluated(1);
+            if(makespan >= bestMakespan)
+                return;
+            System.arraycopy(sol.jobs, 0, best.jobs, 0, sol.jobs.length);
+            bestMakespan = makespan;
+            bestRound = round;
+            if(makespan == lowerBound)
+                optimalRound.accumulateAndGet(round, Math::min);
 
-        return new Result(instance, best, Result.ExitCause.Timeout);
+            int current = globalBest.get();
+            while(makespan < current) {
+                if(globalBest.compareAndSet(current, makespan)) {
+                    metrics.improvement(makespan, sol::toSchedule, listener);
+                    return;
+                }
+                current = globalBest.get();
+            }
+        }
     }
 
     /** Simple Fisher–Yates array shuffling */
-    private static void shuffleArray(int[] array, Random random)
+    private static void shuffleArray(int[] array, SplittableRandom random)
     {
         int index;
         for (int i = array.length - 1; i > 0; i--)
@@ -48,5 +172,3 @@ public class RandomSolver implements Solver {
         }
     }
 }
-
-
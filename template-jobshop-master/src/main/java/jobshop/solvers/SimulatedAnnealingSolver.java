@@ -0,0 +1,134 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.SplittableRandom;
+
+/**
+ * Simulated annealing on the ResourceOrder encoding, starting from a GloutonSolver solution.
+ *
+ * A move swaps two adjacent tasks of a block of a critical path (the N1 neighbourhood). Moves are first evaluated
+ * with the heads and tails of the current solution, in constant time. When a move is accepted, the heads and tails
+ * are only propagated from the two swapped tasks (see ResourceOrder.updateHeadsAndTails(int, int, int)) and the
+ * moves are generated again along the new critical path, instead of going through the whole order. The temperature decreases geometrically with the fraction of the budget
+ * spent, from its initial to its final value when the budget is exhausted. Each move tried is an iteration.
+ * With a budget without any limit, the temperature stays at its initial value.
+ */
+public class SimulatedAnnealingSolver implements Solver {
+
+    // priority rule of the GloutonSolver building the initial solution
+    String gloutonPriority = "EST_LRPT";
+    // initial and final temperatures, as ratios of the makespan of the initial solution
+    double initialTemperature = 0.01;
+    double finalTemperature = 0.0005;
+    long seed = 0;
+
+    // the counters and the temperature are only updated every CHECK_PERIOD iterations (must be a power of two)
+    private static final int CHECK_PERIOD = 256;
+
+    public void setGloutonPriority(String prio) {
+        PriorityRule.valueOf(prio);
+        gloutonPriority = prio;
+    }
+    public void setInitialTemperature(double initialTemperature) {
+        this.initialTemperature = initialTemperature;
+    }
+    public void setFinalTemperature(double finalTemperature) {
+        this.finalTemperature = finalTemperature;
+    }
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        GloutonSolver glouton = new GloutonSolver();
+        glouton.setPriority(gloutonPriority);
+        Budget.Checker check = budget.checker();
+        SolverMetrics metrics = new SolverMetrics();
+        ResourceOrder current = new ResourceOrder(glouton.solve(instance, budget, ImprovementListener.NONE).schedule);
+        int makespan = current.updateHeadsAndTails();
+        metrics.decodes.add(2);
+        metrics.improvement(makespan, current::toSchedule, listener);
+
+        // best order found so far, the current one being copied into it on each improvement
+        ResourceOrder best = current.copy();
+        int bestMakespan = makespan;
+        int lowerBound = LowerBound.of(instance);
+
+        Neighbourhood moves = new Neighbourhood(instance, Neighbourhood.Type.N1);
+        int numMoves = moves.generate(current, makespan);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double t0 = initialTemperature * makespan;
+        double cooling = Math.log(finalTemperature / initialTemperature);
+        double temperature = t0;
+
+        // counters are only added to the metrics every CHECK_PERIOD iterations
+        long evaluated = 0;
+        long accepted = 0;
+        Result.ExitCause cause = Result.ExitCause.Timeout;
+        for (long iteration = 0; ; iteration++) {
+            if (bestMakespan == lowerBound) {
+                cause = Result.ExitCause.ProvedOptimal;
+                break;
+            }
+            if (!check.next()) {
+                break;
+            }
+            if ((iteration & (CHECK_PERIOD - 1)) == 0) {
+                metrics.neighbours.add(evaluated);
+                metrics.moves.add(accepted);
+                metrics.decodes.add(accepted);
+                check.evaluated(evaluated);
+                evaluated = 0;
+                accepted = 0;
+                temperature = t0 * Math.exp(cooling * check.progress());
+            }
+            if (numMoves == 0) {
+                // the critical path only follows jobs: the makespan is the length of a job and cannot be improved
+                cause = Result.ExitCause.Blocked;
+                break;
+            }
+
+            int k = random.nextInt(numMoves);
+            int machine = moves.machine(k);
+            int index = moves.from(k);
+            int delta = current.estimateSwap(machine, index, index + 1) - makespan;
+            evaluated++;
+            if (delta > 0 && random.nextDouble() >= Math.exp(-delta / temperature)) {
+                continue;
+            }
+
+            current.swap(machine, index, index + 1);
+            int next = current.updateHeadsAndTails(machine, index, index + 1);
+            accepted++;
+            if (next == -1) {
+                // cannot happen with critical swaps, undo anyway
+                current.swap(machine, index, index + 1);
+                current.updateHeadsAndTails();
+                continue;
+            }
+            makespan = next;
+            numMoves = moves.generate(current, makespan);
+            if (makespan < bestMakespan) {
+                bestMakespan = makespan;
+                current.copyInto(best);
+                metrics.improvement(makespan, current::toSchedule, listener);
+            }
+        }
+
+        metrics.neighbours.add(evaluated);
+        metrics.moves.add(accepted);
+        metrics.decodes.add(accepted + 1);
+        metrics.stop();
+        return new Result(instance, best.toSchedule(), cause, metrics);
+    }
+}
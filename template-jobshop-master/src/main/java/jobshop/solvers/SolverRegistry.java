@@ -0,0 +1,247 @@
+package jobshop.solvers;
+
+import jobshop.Solver;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named factories of solvers, creating a new solver for each spec such as "descent:rule=EST_LRPT,threads=8".
+ *
+ * A spec is the name of a factory, optionally followed by a colon and comma separated parameters. Each call
+ * to create() configures a new solver, so that a solver is never shared between two runs, even concurrent ones.
+ * Aliases give a name to a spec; parameters given after an alias override those of its spec.
+ * The registry itself can be used by several threads at once.
+ */
+public class SolverRegistry {
+
+    /** Creates a solver configured with the given parameters. */
+    @FunctionalInterface
+    public interface Factory {
+        Solver create(Parameters parameters);
+    }
+
+    /** Parameters of a spec. Reading a parameter marks it as used: unused parameters are reported as errors. */
+    public static class Parameters {
+        private final String solver;
+        private final Map<String, String> values;
+        private final Set<String> used = new HashSet<>();
+
+        Parameters(String solver, Map<String, String> values) {
+            this.solver = solver;
+            this.values = values;
+        }
+
+        public String getString(String name, String defaultValue) {
+            used.add(name);
+            return values.getOrDefault(name, defaultValue);
+        }
+
+        public int getInt(String name, int defaultValue) {
+            String value = getString(name, null);
+            try {
+                return value == null ? defaultValue : Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw invalid(name, value, "an integer");
+            }
+        }
+
+        /** Integer parameter that cannot be smaller than the given minimum, such as a number of threads. */
+        public int getInt(String name, int defaultValue, int minimum) {
+            int value = getInt(name, defaultValue);
+            if (value < minimum) {
+                throw invalid(name, String.valueOf(value), "an integer of at least " + minimum);
+            }
+            return value;
+        }
+
+        public long getLong(String name, long defaultValue) {
+            String value = getString(name, null);
+            try {
+                return value == null ? defaultValue : Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw invalid(name, value, "an integer");
+            }
+        }
+
+        /** Long parameter that cannot be smaller than the given minimum. */
+        public long getLong(String name, long defaultValue, long minimum) {
+            long value = getLong(name, defaultValue);
+            if (value < minimum) {
+                throw invalid(name, String.valueOf(value), "an integer of at least " + minimum);
+            }
+            return value;
+        }
+
+        public double getDouble(String name, double defaultValue) {
+            String value = getString(name, null);
+            try {
+                return value == null ? defaultValue : Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw invalid(name, value, "a number");
+            }
+        }
+
+        private IllegalArgumentException invalid(String name, String value, String expected) {
+            return new IllegalArgumentException("Solver \"" + solver + "\": parameter " + name + " should be " + expected + ", not \"" + value + "\"");
+        }
+    }
+
+    private final Map<String, Factory> factories = new ConcurrentHashMap<>();
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+
+    public void register(String name, Factory factory) {
+        factories.put(name, factory);
+    }
+
+    /** Makes the name stand for the given spec. */
+    public void alias(String name, String spec) {
+        aliases.put(name, spec);
+    }
+
+    /** Names of the factories and aliases, sorted. */
+    public Set<String> names() {
+        Set<String> names = new TreeSet<>(factories.keySet());
+        names.addAll(aliases.keySet());
+        return names;
+    }
+
+    /**
+     * Creates a new solver from its spec.
+     * Throws an IllegalArgumentException if there is no such solver or if its parameters are invalid.
+     */
+    public Solver create(String spec) {
+        int colon = spec.indexOf(':');
+        String name = colon == -1 ? spec : spec.substring(0, colon);
+        Map<String, String> values = new LinkedHashMap<>();
+        if (!factories.containsKey(name) && aliases.containsKey(name)) {
+            String target = aliases.get(name);
+            int targetColon = target.indexOf(':');
+            if (targetColon != -1) {
+                parse(target, target.substring(targetColon + 1), values);
+            }
+            name = targetColon == -1 ? target : target.substring(0, targetColon);
+        }
+        Factory factory = factories.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown solver \"" + name + "\"");
+        }
+        if (colon != -1) {
+            parse(spec, spec.substring(colon + 1), values);
+        }
+
+        Parameters parameters = new Parameters(name, values);
+        Solver solver = factory.create(parameters);
+        for (String parameter : values.keySet()) {
+            if (!parameters.used.contains(parameter)) {
+                throw new IllegalArgumentException("Solver \"" + name + "\" has no parameter " + parameter);
+            }
+        }
+        return solver;
+    }
+
+    private static void parse(String spec, String parameters, Map<String, String> values) {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        for (String parameter : parameters.split(",")) {
+            int equals = parameter.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Invalid parameter \"" + parameter + "\" in \"" + spec + "\", expected name=value");
+            }
+            values.put(parameter.substring(0, equals).trim(), parameter.substring(equals + 1).trim());
+        }
+    }
+
+    /**
+     * Registry of all the solvers of this project, with their parameters (named after their setters), and
+     * of the names under which they used to be available as aliases.
+     */
+    public static SolverRegistry standard() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        SolverRegistry registry = new SolverRegistry();
+
+        registry.register("basic", p -> new BasicSolver());
+        registry.register("random", p -> {
+            RandomSolver solver = new RandomSolver();
+            solver.setThreads(p.getInt("threads", solver.threads, 1));
+            solver.setSeed(p.getLong("seed", solver.seed));
+            solver.setSamplesPerThread(p.getLong("samplesPerThread", solver.samplesPerThread, 1));
+            return solver;
+        });
+        registry.register("glouton", p -> {
+            GloutonSolver solver = new GloutonSolver();
+            solver.setPriority(p.getString("rule", "SPT"));
+            return solver;
+        });
+        registry.register("descent", p -> {
+            DescentSolver solver = new DescentSolver();
+            solver.setGloutonPriority(p.getString("rule", solver.gloutonPriority));
+            solver.setStrategy(DescentSolver.Strategy.valueOf(p.getString("strategy", solver.strategy.name())));
+            solver.setNeighbourhood(Neighbourhood.Type.valueOf(p.getString("neighbourhood", solver.neighbourhood.name())));
+            solver.setThreads(p.getInt("threads", solver.threads, 1));
+            solver.setCacheSize(p.getInt("cacheSize", solver.cacheSize, 1));
+            return solver;
+        });
+        registry.register("taboo", p -> {
+            TabooSolver solver = new TabooSolver();
+            solver.setGloutonPrio(p.getString("rule", solver.gloutonPriority));
+            solver.setTenure(p.getInt("tenure", solver.tenure, 0));
+            solver.setNeighbourhood(Neighbourhood.Type.valueOf(p.getString("neighbourhood", solver.neighbourhood.name())));
+            solver.setMaxIter(p.getInt("maxIter", solver.maxIter, 0));
+            solver.setCacheSize(p.getInt("cacheSize", solver.cacheSize, 1));
+            return solver;
+        });
+        registry.register("portfolio", p -> {
+            PortfolioSolver solver = new PortfolioSolver();
+            // rules are separated by '+', commas separating parameters
+            solver.setPriorities(p.getString("rules", String.join("+", solver.priorities)).split("\\+"));
+            solver.setThreads(p.getInt("threads", solver.threads, 1));
+            solver.setCutoff(p.getDouble("cutoff", solver.cutoff));
+            return solver;
+        });
+        registry.register("genetic", p -> {
+            GeneticSolver solver = new GeneticSolver();
+            solver.setIslands(p.getInt("islands", cores, 1));
+            solver.setPopulationSize(p.getInt("populationSize", solver.populationSize, 1));
+            solver.setEpochLength(p.getInt("epochLength", solver.epochLength, 1));
+            solver.setMigrants(p.getInt("migrants", solver.migrants, 0));
+            if (solver.migrants > solver.populationSize) {
+                // the migrants replace the worst individuals of the next island
+                throw new IllegalArgumentException("Solver \"genetic\": parameter migrants should be at most populationSize (" + solver.populationSize + "), not \"" + solver.migrants + "\"");
+            }
+            solver.setMutationRate(p.getDouble("mutationRate", solver.mutationRate));
+            solver.setMaxEpochs(p.getInt("maxEpochs", solver.maxEpochs, 1));
+            solver.setSeed(p.getLong("seed", solver.seed));
+            return solver;
+        });
+        registry.register("annealing", p -> {
+            SimulatedAnnealingSolver solver = new SimulatedAnnealingSolver();
+            solver.setGloutonPriority(p.getString("rule", solver.gloutonPriority));
+            solver.setInitialTemperature(p.getDouble("initialTemperature", solver.initialTemperature));
+            solver.setFinalTemperature(p.getDouble("finalTemperature", solver.finalTemperature));
+            solver.setSeed(p.getLong("seed", solver.seed));
+            return solver;
+        });
+        registry.register("branch_and_bound", p -> {
+            BranchAndBoundSolver solver = new BranchAndBoundSolver();
+            solver.setThreads(p.getInt("threads", solver.threads, 1));
+            solver.setParallelDepth(p.getInt("parallelDepth", solver.parallelDepth, 0));
+            return solver;
+        });
+
+        registry.alias("random_parallel", "random:threads=" + cores);
+        for (String rule : new String[]{"SPT", "LPT", "SRPT", "LRPT", "EST_SPT", "EST_LRPT"}) {
+            registry.alias(rule, "glouton:rule=" + rule);
+            registry.alias(rule + "_Descent", "descent:rule=" + rule);
+        }
+        registry.alias("EST_LRPT_Descent_Parallel", "descent:rule=EST_LRPT,threads=" + cores);
+        registry.alias("EST_LRPT_Taboo", "taboo:rule=EST_LRPT");
+
+        return registry;
+    }
+}
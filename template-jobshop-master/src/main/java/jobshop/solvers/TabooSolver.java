@@ -1,129 +1,216 @@
 package jobshop.solvers;
 
+import jobshop.Budget;
+import jobshop.ImprovementListener;
 import jobshop.Instance;
+import jobshop.LowerBound;
 import jobshop.Result;
-import jobshop.Schedule;
 import jobshop.Solver;
+import jobshop.SolverMetrics;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
-
-import java.util.*;
 
 public class TabooSolver implements Solver{
 
-    GloutonSolver gloutonSolver = new GloutonSolver();
+    // priority rule of the GloutonSolver building the initial solution
+    String gloutonPriority = "EST_LRPT";
+
+    // number of iterations during which the inverse of an applied move is forbidden
+    int tenure = 10;
+    // neighbours of a solution: N5 swaps, or N6 moves of tasks to the start or the end of their block
+    Neighbourhood.Type neighbourhood = Neighbourhood.Type.N5;
+    // maximum number of iterations, the search otherwise stops when the budget is exhausted (a Timeout either way)
+    int maxIter = Integer.MAX_VALUE;
+    // number of visited solutions remembered: moving back to one of them is taboo, which prevents
+    // the search from cycling through solutions the taboo list lets through. Unlike the taboo list, this does not
+    // depend on the tenure: a visited solution stays taboo until the cache evicts it, i.e. until four more recent
+    // solutions fall in its bucket (see MakespanCache), which depends on the cache size and on their hashes.
+    int cacheSize = 1 << 16;
 
     public void setGloutonPrio(String prio){
-        gloutonSolver.setPriority(prio);
+        PriorityRule.valueOf(prio);
+        gloutonPriority = prio;
+    }
+    public void setTenure(int tenure){
+        this.tenure = tenure;
+    }
+    public void setNeighbourhood(Neighbourhood.Type neighbourhood){
+        this.neighbourhood = neighbourhood;
+    }
+    public void setMaxIter(int maxIter){
+        this.maxIter = maxIter;
+    }
+    public void setCacheSize(int cacheSize){
+        this.cacheSize = cacheSize;
     }
 
     @Override
-    public Result solve(Instance instance, long deadline) {
-        gloutonSolver.setPriority("EST_LRPT");
-        Result r = gloutonSolver.solve(instance, deadline);
-
-        ResourceOrder rso = new ResourceOrder(r.schedule);
-        ResourceOrder currentSolution = rso.copy();
-
+    public Result solve(Instance instance, Budget budget, ImprovementListener listener) {
+        SolverMetrics metrics = new SolverMetrics();
+        GloutonSolver gloutonSolver = new GloutonSolver();
+        gloutonSolver.setPriority(gloutonPriority);
+        Result r = gloutonSolver.solve(instance, budget, ImprovementListener.NONE);
+        Budget.Checker check = budget.checker();
+
+        ResourceOrder currentSolution = new ResourceOrder(r.schedule);
+        int makespan = currentSolution.updateHeadsAndTails();
+        metrics.decodes.add(2);
+        // best order found so far, the current one being copied into it on each improvement
+        ResourceOrder best = currentSolution.copy();
+        metrics.improvement(makespan, best::toSchedule, listener);
+        int bestMakespan = makespan;
+        int lowerBound = LowerBound.of(instance);
+
+        // sTaboo[(machine * nbJobs + a) * nbJobs + b] is the iteration until which the task of job a
+        // cannot be put before the task of job b on this machine
         int nbJobs = instance.numJobs;
-        int nbMachines = instance.numMachines;
-        int size = nbJobs * nbMachines;
-
-        int[][] sTaboo = new int[size][size];
+        int[] sTaboo = new int[instance.numMachines * nbJobs * nbJobs];
+        MakespanCache visited = new MakespanCache(cacheSize);
+        Neighbourhood neighbourhood = new Neighbourhood(instance, this.neighbourhood);
 
-        //Init
-        for(int i = 0 ; i < size ; i ++){
-            for(int j = 0 ; j < size ; j ++){
-                sTaboo[i][j] = 0;
-            }
-        }
-        
         //loop
-        int k = 1;
-        int maxIter = 200;
-        while(k < maxIter) {
-
-            List<DescentSolver.Swap> ListSwap = new ArrayList<>();
-            List<DescentSolver.Block> ListBlock = this.blocksOfCriticalPath(currentSolution);
-            for (DescentSolver.Block block : ListBlock) {
-                ListSwap.addAll(this.neighbors(block));
+        int k = 0;
+        Result.ExitCause cause = Result.ExitCause.Blocked;
+        while(true) {
+            if(bestMakespan == lowerBound) {
+                cause = Result.ExitCause.ProvedOptimal;
+                break;
+            }
+            if(k >= maxIter || !check.next()) {
+                cause = Result.ExitCause.Timeout;
+                break;
             }
-            // A finir
             k++;
-        }
-        return new Result(null, null, null);
-    }
-    //Copy of the descent Solver's methods
-    int indexTaskOnMachine(ResourceOrder rso, int machine, Task taskObj) {
-        int index_T = -1;
-        for (int i = 0; i < rso.instance.numJobs; i++) {
-            if (rso.tasksByMachine[machine][i].equals(taskObj)) {
-                index_T = i;
+            visited.put(currentSolution.hash(), makespan);
+
+            int size = neighbourhood.generate(currentSolution, makespan);
+            metrics.neighbours.add(size);
+            check.evaluated(size);
+
+            //Selecting the best neighbor that is not taboo. A taboo neighbor is only taken if it improves the best
+            //solution (aspiration), which its estimate cannot tell: the most promising one is evaluated exactly.
+            //If every neighbor is taboo, the best one is taken anyway
+            int bestMove = -1;
+            int bestTabooMove = -1;
+            int aspirant = -1;
+            int bestEstimate = Integer.MAX_VALUE;
+            int bestTabooEstimate = Integer.MAX_VALUE;
+            int aspirantEstimate = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                int machine = neighbourhood.machine(i);
+                int from = neighbourhood.from(i);
+                int to = neighbourhood.to(i);
+                int estimate = currentSolution.estimateMove(machine, from, to);
+                boolean known = visited.get(currentSolution.hashAfterMove(machine, from, to)) != MakespanCache.NOT_FOUND;
+                if (!known && !isTaboo(sTaboo, currentSolution, machine, from, to, k)) {
+                    if (estimate < bestEstimate) {
+                        bestMove = i;
+                        bestEstimate = estimate;
+                    }
+                    continue;
+                }
+                if (estimate < bestTabooEstimate) {
+                    bestTabooMove = i;
+                    bestTabooEstimate = estimate;
+                }
+                // a visited solution is not better than the best one
+                if (!known && estimate < bestMakespan && estimate < aspirantEstimate) {
+                    aspirant = i;
+                    aspirantEstimate = estimate;
+                }
+            }
+
+            int chosen = -1;
+            if (aspirant != -1) {
+                int machine = neighbourhood.machine(aspirant);
+                int from = neighbourhood.from(aspirant);
+                int to = neighbourhood.to(aspirant);
+                currentSolution.move(machine, from, to);
+                int exact = currentSolution.updateHeadsAndTails(machine, from, to);
+                metrics.decodes.increment();
+                if (exact != -1 && exact < bestMakespan) {
+                    // kept as it is
+                    chosen = aspirant;
+                    makespan = exact;
+                } else {
+                    currentSolution.move(machine, to, from);
+                    DescentSolver.undone(currentSolution, machine, from, to, exact);
+                    metrics.decodes.increment();
+                }
+            }
+            boolean applied = chosen != -1;
+            if (!applied) {
+                chosen = bestMove != -1 ? bestMove : bestTabooMove;
+            }
+            if (chosen == -1) {
+                // no neighbor at all : the critical path has no block
+                break;
+            }
+            int machine = neighbourhood.machine(chosen);
+            int from = neighbourhood.from(chosen);
+            int to = neighbourhood.to(chosen);
+            if (!applied) {
+                currentSolution.move(machine, from, to);
+                makespan = currentSolution.updateHeadsAndTails(machine, from, to);
+                metrics.decodes.increment();
+            }
+            metrics.moves.increment();
+            forbidReverse(sTaboo, currentSolution, machine, from, to, k + tenure);
+
+            if (makespan == -1) {
+                // cannot happen for the moves of the neighbourhoods, undo it just in case
+                currentSolution.move(machine, to, from);
+                makespan = currentSolution.updateHeadsAndTails();
+            } else if (makespan < bestMakespan) {
+                currentSolution.copyInto(best);
+                bestMakespan = makespan;
+                metrics.improvement(makespan, best::toSchedule, listener);
             }
         }
-        return index_T;
+        metrics.stop();
+        return new Result(instance, best.toSchedule(), cause, metrics);
     }
 
     /**
-     * Returns a list of all blocks of the critical path.
+     * Once the task at index from of the machine has been moved to index to, forbids putting it back in its order
+     * with the tasks it went past until the given iteration.
      */
-    List<DescentSolver.Block> blocksOfCriticalPath(ResourceOrder order) {
-
-        Schedule schedule = order.toSchedule(); //Creating the Schedule from the rso Order
-        List<Task> listTask = schedule.criticalPath(); // Getting the criticalPath from the schedule
-        int Index_S = -1;
-        int Index_E;
-        int currentMachine = -1;
-        ArrayList<DescentSolver.Block> BlockList = new ArrayList<>(); //List of block returned by this method
-        for (int j = 0; j < listTask.size() - 1; j++) {
-            int task = listTask.get(j).task;
-            int job = listTask.get(j).job;
-            int machine = order.instance.machine(job, task);
-            //Here we call the method created just above
-            int index_T = indexTaskOnMachine(order, machine, listTask.get(j));
-            //Testing for the 1st iteration and to set currentMachine
-            if (currentMachine == -1 || currentMachine != machine) {
-                currentMachine = machine;
-                Index_S = index_T;
+    private void forbidReverse(int[] sTaboo, ResourceOrder rso, int machine, int from, int to, int until) {
+        int nbJobs = rso.instance.numJobs;
+        int jobMoved = rso.tasksByMachine[machine][to].job;
+        for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+            if (i == to) {
+                continue;
+            }
+            int job = rso.tasksByMachine[machine][i].job;
+            // moved forward, the task was before the other one, moved backward after it
+            if (from < to) {
+                sTaboo[(machine * nbJobs + jobMoved) * nbJobs + job] = until;
+            } else {
+                sTaboo[(machine * nbJobs + job) * nbJobs + jobMoved] = until;
             }
-            //Getting the next Task/Job/Machine/index_T for the path
-            int nextTask = listTask.get(j + 1).task;
-            int nextJob = listTask.get(j + 1).job;
-            int nextMachine = order.instance.machine(nextJob, nextTask);
-            int nextIndexTask = indexTaskOnMachine(order, nextMachine, listTask.get(j + 1));
-
-            if (nextMachine != machine) {
-                Index_E = index_T;
-                if (Index_S != Index_E) {
-                    BlockList.add(new DescentSolver.Block(machine, Index_S, Index_E));
-                }
-            } else if (j == listTask.size() - 2) {
-                Index_E = nextIndexTask;
-                if (Index_S != Index_E) {
-                    BlockList.add(new DescentSolver.Block(machine, Index_S, Index_E));
-                } }
-
         }
-        return BlockList;
     }
 
     /**
-     * For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood
+     * Returns true if moving the task at index from of the machine to index to at iteration k would put back
+     * two tasks in a forbidden order. Only the order of the moved task with the tasks it goes past changes.
      */
-    List<DescentSolver.Swap> neighbors(DescentSolver.Block block) {
-        int Task_F = block.Task_F;
-        int Task_L = block.lastTask;
-        int machine = block.machine;
-        ArrayList<DescentSolver.Swap> SwapList = new ArrayList<>();
-        //Testing if Last and first tasks are already neighbors
-        if((Task_L-Task_F) == 1){
-            //If so : creating 1 swap
-            SwapList.add(new DescentSolver.Swap(machine,Task_L,Task_F));
-        }else{
-            //If not : creating 2 swap, for the task and their neigbors
-            SwapList.add(new DescentSolver.Swap(machine,Task_F,Task_F+1));
-            SwapList.add(new DescentSolver.Swap(machine,(Task_L-1),Task_L));
+    private boolean isTaboo(int[] sTaboo, ResourceOrder rso, int machine, int from, int to, int k) {
+        int nbJobs = rso.instance.numJobs;
+        int jobMoved = rso.tasksByMachine[machine][from].job;
+        for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+            if (i == from) {
+                continue;
+            }
+            int job = rso.tasksByMachine[machine][i].job;
+            // moved forward, the task goes after the other one, moved backward before it
+            int until = from < to
+                    ? sTaboo[(machine * nbJobs + job) * nbJobs + jobMoved]
+                    : sTaboo[(machine * nbJobs + jobMoved) * nbJobs + job];
+            if (until > k) {
+                return true;
+            }
         }
-        return SwapList;
+        return false;
     }
-}
\ No newline at end of file
+}
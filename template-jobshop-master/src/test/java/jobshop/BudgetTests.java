@@ -0,0 +1,60 @@
+package jobshop;
+
+import jobshop.solvers.TabooSolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BudgetTests {
+
+    @Test
+    public void testChecker() {
+        Budget budget = Budget.unlimited();
+        budget.setMaxIterations(1000);
+        Budget.Checker check = budget.checker();
+        int iterations = 0;
+        while (check.next())
+            iterations++;
+        // a single checker never goes past the iteration limit
+        assert iterations == 1000;
+        assert budget.isExhausted();
+        assert !check.next();
+        // refused iterations are not counted
+        assert budget.iterations() == 1000;
+
+        // evaluations are counted once done: the budget is exhausted when they reach the limit
+        Budget evaluations = Budget.unlimited();
+        evaluations.setMaxEvaluations(100);
+        Budget.Checker counter = evaluations.checker();
+        counter.evaluated(99);
+        assert counter.check();
+        counter.evaluated(1);
+        assert !counter.check();
+        assert evaluations.evaluations() == 100;
+
+        Budget cancelled = Budget.unlimited();
+        Budget.Checker other = cancelled.checker();
+        assert other.next();
+        cancelled.cancel();
+        assert !other.check();
+    }
+
+    @Test
+    public void testListener() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Budget budget = Budget.unlimited();
+        budget.setMaxIterations(200);
+        List<Integer> makespans = new ArrayList<>();
+
+        Result result = new TabooSolver().solve(instance, budget, schedule -> makespans.add(schedule.makespan()));
+
+        assert result.cause == Result.ExitCause.Timeout;
+        assert !makespans.isEmpty();
+        for (int i = 1; i < makespans.size(); i++)
+            assert makespans.get(i) < makespans.get(i - 1);
+        assert makespans.get(makespans.size() - 1) == result.schedule.makespan();
+    }
+}
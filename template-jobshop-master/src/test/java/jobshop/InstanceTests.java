@@ -0,0 +1,80 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+public class InstanceTests {
+
+    @Test
+    public void testLoaders() throws IOException {
+        Path dir = Files.createTempDirectory("instances");
+        for(String name : new String[]{"aaa1", "ft06", "la21", "ta41"}) {
+            Path path = Paths.get("instances", name);
+            Instance text = Instance.fromFile(path);
+
+            Path binary = dir.resolve(name + ".bin");
+            text.writeBinaryFile(binary);
+            assertSame(text, Instance.fromBinaryFile(binary));
+
+            // the first call writes the cache, the second one reads it
+            Path cacheDir = dir.resolve("cache");
+            assertSame(text, Instance.fromFileCached(path, cacheDir));
+            assert Files.exists(cacheDir.resolve(name + ".bin"));
+            assertSame(text, Instance.fromFileCached(path, cacheDir));
+        }
+        assert Instance.fromFile(Paths.get("instances/aaa1")).duration(1, 2) == 4;
+    }
+
+    @Test
+    public void testCacheFreshness() throws IOException {
+        Path dir = Files.createTempDirectory("instances");
+        Path path = dir.resolve("small");
+        Path cacheDir = dir.resolve("cache");
+        Files.write(path, "1 2\n0 3 1 4\n".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(1_000_000));
+        assert Instance.fromFileCached(path, cacheDir).duration(0, 1) == 4;
+
+        // a text file more recent than its binary copy is parsed again
+        Files.write(path, "1 2\n0 3 1 5\n".getBytes(StandardCharsets.US_ASCII));
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        assert Instance.fromFileCached(path, cacheDir).duration(0, 1) == 5;
+    }
+
+    @Test
+    public void testParser() throws IOException {
+        Path dir = Files.createTempDirectory("instances");
+        Path path = dir.resolve("commented");
+        Files.write(path, "# comment\n2 2 # jobs tasks\n\n0 1 1 2\n# between jobs\n1 3 0 4 # end of line\n".getBytes(StandardCharsets.US_ASCII));
+        Instance instance = Instance.fromFile(path);
+        assert instance.machine(1, 0) == 1 && instance.duration(1, 1) == 4;
+
+        // as with the former parser, a job cannot be split over several lines
+        Path split = dir.resolve("split");
+        Files.write(split, "2 2\n0 1\n1 2\n1 3 0 4\n".getBytes(StandardCharsets.US_ASCII));
+        try {
+            Instance.fromFile(split);
+            assert false;
+        } catch (IOException e) {
+            assert e.getMessage().contains("line 2");
+        }
+    }
+
+    private static void assertSame(Instance expected, Instance actual) {
+        assert actual.numJobs == expected.numJobs && actual.numTasks == expected.numTasks;
+        for(int j = 0 ; j < expected.numJobs ; j++) {
+            for(int t = 0 ; t < expected.numTasks ; t++) {
+                assert actual.machine(j, t) == expected.machine(j, t);
+                assert actual.duration(j, t) == expected.duration(j, t);
+            }
+            for(int m = 0 ; m < expected.numMachines ; m++) {
+                assert actual.task_with_machine(j, m) == expected.task_with_machine(j, m);
+            }
+        }
+    }
+}
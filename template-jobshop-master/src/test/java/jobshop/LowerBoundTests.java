@@ -0,0 +1,28 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class LowerBoundTests {
+
+    @Test
+    public void testLowerBound() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // both jobs last 8 and the most loaded machine (2) is busy for 6
+        assert LowerBound.jobBound(instance) == 8;
+        assert LowerBound.machineBound(instance) == 6;
+        // on machine 2, the last task of job 1 cannot start before 4 and the one of job 0 before 6
+        assert LowerBound.jacksonBound(instance) == 10;
+        assert LowerBound.of(instance) == 10;
+        assert LowerBound.of(instance) <= BestKnownResult.of("aaa1");
+
+        // the first task is interrupted when the second one, with a larger tail, is released
+        int[] releases = {0, 1};
+        int[] durations = {4, 1};
+        int[] tails = {0, 5};
+        assert LowerBound.preemptiveJackson(2, releases, durations, tails, new int[2]) == 7;
+    }
+}
@@ -0,0 +1,59 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class ScheduleTests {
+
+    @Test
+    public void testValidate() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // schedule of the job numbers 1 2 2 1 1 2 (cf exercices)
+        int[][] times = {
+                {0, 3, 6},
+                {0, 3, 8}
+        };
+        Schedule sched = new Schedule(instance, times);
+        assert sched.isValid();
+        assert sched.validate().isValid();
+
+        // job 1 now uses machine 1 while task (0,1) is still using it,
+        // and its last task starts before the end of the previous one and while machine 2 is busy
+        times[1][0] = 4;
+        times[1][1] = 6;
+        times[1][2] = 7;
+        sched = new Schedule(instance, times);
+        ValidationReport report = sched.validate();
+        assert !sched.isValid();
+        assert report.violations.size() == 3;
+        assert report.violations.get(0).kind == ValidationReport.Kind.JOB_PRECEDENCE;
+        assert report.violations.get(1).kind == ValidationReport.Kind.MACHINE_OVERLAP;
+        assert report.violations.get(2).kind == ValidationReport.Kind.MACHINE_OVERLAP;
+
+        // a long task overlapping the two following ones on its machine
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        int[][] serial = new int[ft06.numJobs][ft06.numTasks];
+        int time = 0;
+        for(int t = 0 ; t < ft06.numTasks ; t++) {
+            for(int j = 0 ; j < ft06.numJobs ; j++) {
+                serial[j][t] = time;
+                time += ft06.duration(j, t);
+            }
+        }
+        assert new Schedule(ft06, serial).isValid();
+        // the first tasks of jobs 1, 3 and 5 use machine 1: (1,0) runs from 1 to 9, over (3,0) and (5,0)
+        assert serial[1][0] == 1 && ft06.duration(1, 0) == 8;
+        serial[3][0] = 2;
+        serial[5][0] = 4;
+        report = new Schedule(ft06, serial).validate();
+        int overlaps = 0;
+        for(ValidationReport.Violation violation : report.violations) {
+            if(violation.kind == ValidationReport.Kind.MACHINE_OVERLAP)
+                overlaps++;
+        }
+        assert overlaps == 3;
+    }
+}
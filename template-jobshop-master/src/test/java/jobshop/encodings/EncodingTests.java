@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.Random;
 
 public class EncodingTests {
 
@@ -48,6 +49,200 @@ public class EncodingTests {
         assert sched.makespan() == 14;
     }
 
+    @Test
+    public void testResourceOrder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // same solution as the job numbers 1 2 2 1 1 2
+        ResourceOrder enc = new ResourceOrder(instance);
+        enc.addTask(0, new Task(0, 0));
+        enc.addTask(0, new Task(1, 1));
+        enc.addTask(1, new Task(1, 0));
+        enc.addTask(1, new Task(0, 1));
+        enc.addTask(2, new Task(0, 2));
+        enc.addTask(2, new Task(1, 2));
+
+        Schedule sched = enc.toSchedule();
+        assert sched.isValid();
+        assert sched.makespan() == 12;
+        assert enc.updateHeadsAndTails() == 12;
+
+        // job 1 now goes first on machine 0 and last on machine 1 : cyclic dependency
+        enc.tasksByMachine[0][0] = new Task(1, 1);
+        enc.tasksByMachine[0][1] = new Task(0, 0);
+        enc.tasksByMachine[1][0] = new Task(0, 1);
+        enc.tasksByMachine[1][1] = new Task(1, 0);
+        assert enc.toSchedule() == null;
+        assert enc.updateHeadsAndTails() == -1;
+    }
+
+    @Test
+    public void testPackedResourceOrder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
+
+        // numéro de jobs : 1 2 2 1 1 2
+        JobNumbers jobs = new JobNumbers(instance);
+        jobs.jobs[jobs.nextToSet++] = 0;
+        jobs.jobs[jobs.nextToSet++] = 1;
+        jobs.jobs[jobs.nextToSet++] = 1;
+        jobs.jobs[jobs.nextToSet++] = 0;
+        jobs.jobs[jobs.nextToSet++] = 0;
+        jobs.jobs[jobs.nextToSet++] = 1;
+
+        PackedResourceOrder enc = new PackedResourceOrder(jobs);
+        assert enc.toSchedule().isValid();
+        assert enc.toSchedule().makespan() == 12;
+        assert enc.toResourceOrder().toSchedule().makespan() == 12;
+        assert enc.toJobNumbers().toSchedule().makespan() == 12;
+        assert new ResourceOrder(enc.toSchedule()).toJobNumbers().toSchedule().makespan() == 12;
+        assert new PackedResourceOrder(enc.toSchedule()).toSchedule().makespan() == 12;
+        assert enc.makespan() == 12;
+
+        // task (1,1) is the second one on machine 0
+        assert enc.positionOf(1, 1) == 1;
+        enc.swap(0, 0, 1);
+        assert enc.positionOf(1, 1) == 0;
+        assert enc.taskAt(0, 1) == enc.taskId(0, 0);
+        assert enc.toSchedule().isValid();
+
+        // job 1 now goes first on machine 0 and last on machine 1 : cyclic dependency
+        enc.swap(1, 0, 1);
+        assert enc.toSchedule() == null;
+        assert enc.toJobNumbers() == null;
+        assert enc.makespan() == -1;
+
+        // both decoders give the same schedules
+        instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        PackedResourceOrder packed = new PackedResourceOrder(order);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            Schedule expected = order.toSchedule();
+            Schedule schedule = packed.toSchedule();
+            assert packed.makespan() == expected.makespan();
+            assert schedule.criticalPath().equals(expected.criticalPath());
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    assert schedule.startTime(j, t) == expected.startTime(j, t);
+                }
+            }
+            // the first two tasks of the machine are swapped if it does not create a cycle
+            order.swap(m, 0, 1);
+            packed.swap(m, 0, 1);
+            if(order.updateHeadsAndTails() == -1) {
+                order.swap(m, 0, 1);
+                packed.swap(m, 0, 1);
+            }
+        }
+    }
+
+    @Test
+    public void testEstimateSwap() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+        assert makespan == order.toSchedule().makespan();
+
+        // every swap of two adjacent tasks that are both critical is estimated with a lower bound of its makespan
+        int critical = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs - 1 ; i++) {
+                int u = order.taskId(m, i);
+                int v = order.taskId(m, i + 1);
+                if(order.head(u) + instance.duration(u) + order.tail(u) != makespan
+                        || order.head(v) + instance.duration(v) + order.tail(v) != makespan
+                        || order.head(u) + instance.duration(u) != order.head(v))
+                    continue;
+                critical++;
+                int estimate = order.estimateSwap(m, i, i + 1);
+                order.swap(m, i, i + 1);
+                int exact = order.updateHeadsAndTails();
+                order.swap(m, i, i + 1);
+                assert exact != -1 && estimate <= exact;
+                assert order.updateHeadsAndTails() == makespan;
+            }
+        }
+        assert critical > 0;
+
+        // decoding an order leaves the heads and tails of this order, even after a rejected swap
+        int estimate = order.estimateSwap(0, 0, 1);
+        order.swap(0, 0, 1);
+        order.toSchedule();
+        order.swap(0, 0, 1);
+        assert order.toSchedule().makespan() == makespan;
+        assert order.estimateSwap(0, 0, 1) == estimate;
+
+        try {
+            order.estimateSwap(0, 0, 2);
+            assert false;
+        } catch (IllegalArgumentException e) {
+            // only adjacent tasks can be estimated
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+        ResourceOrder full = new ResourceOrder(instance);
+        final int size = instance.numJobs * instance.numTasks;
+
+        // random moves and swaps, some of them creating cycles, updated incrementally
+        Random random = new Random(0);
+        int cycles = 0;
+        for(int k = 0 ; k < 2000 ; k++) {
+            int machine = random.nextInt(instance.numMachines);
+            int from = random.nextInt(instance.numJobs);
+            int to = random.nextInt(instance.numJobs);
+            boolean swap = k % 2 == 0;
+            if(swap && k % 10 != 0) {
+                // mostly adjacent tasks, the others leading to a full update
+                from = Math.min(from, instance.numJobs - 2);
+                to = from + 1;
+            }
+            if(swap) order.swap(machine, from, to); else order.move(machine, from, to);
+            order.copyInto(full);
+            int expected = full.updateHeadsAndTails();
+            int incremental = order.updateHeadsAndTails(machine, from, to);
+            assert incremental == expected;
+            if(expected == -1) {
+                // undone, heads and tails being computed again
+                cycles++;
+                if(swap) order.swap(machine, from, to); else order.move(machine, to, from);
+                assert order.updateHeadsAndTails() == makespan;
+                continue;
+            }
+            makespan = expected;
+            for(int id = 0 ; id < size ; id++) {
+                assert order.head(id) == full.head(id) && order.tail(id) == full.tail(id);
+                assert order.positionOf(id / instance.numTasks, id % instance.numTasks) == full.positionOf(id / instance.numTasks, id % instance.numTasks);
+            }
+        }
+        assert cycles > 0;
+        assert order.toSchedule().makespan() == makespan;
+    }
+
+    @Test
+    public void testResourceOrderCopy() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+
+        ResourceOrder copy = order.copy();
+        assert copy.hash() == order.hash();
+        assert copy.updateHeadsAndTails() == makespan;
+        // the copy is independent of the original
+        copy.swap(0, 0, 1);
+        assert copy.hash() != order.hash();
+        assert order.toSchedule().makespan() == makespan;
+
+        // copyInto overwrites an existing order in place
+        ResourceOrder target = new ResourceOrder(instance);
+        order.copyInto(target);
+        assert target.hash() == order.hash() && target.rehash() == order.hash();
+        assert target.updateHeadsAndTails() == makespan;
+    }
+
     @Test
     public void testBasicSolver() throws IOException {
         Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
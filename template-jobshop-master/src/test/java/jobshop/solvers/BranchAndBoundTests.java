@@ -0,0 +1,25 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class BranchAndBoundTests {
+
+    @Test
+    public void testOptimum() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+
+        BranchAndBoundSolver solver = new BranchAndBoundSolver();
+        solver.setThreads(2);
+        Result result = solver.solve(instance, System.currentTimeMillis() + 60000);
+
+        assert result.schedule.isValid();
+        assert result.cause == Result.ExitCause.ProvedOptimal;
+        // optimum of ft06, above its lower bound (52)
+        assert result.schedule.makespan() == 55;
+    }
+}
@@ -0,0 +1,63 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.Instance;
+import jobshop.SolverMetrics;
+import jobshop.encodings.ResourceOrder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+public class DescentSolverTests {
+
+    @Test
+    public void testParallelStepIsDeterministic() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        for (DescentSolver.Strategy strategy : DescentSolver.Strategy.values()) {
+            DescentSolver solver = new DescentSolver();
+            solver.setStrategy(strategy);
+            // exact evaluation of every neighbour on a single thread, then on four
+            long hash = descend(instance, solver, 1);
+            for (int run = 0; run < 3; run++) {
+                assert descend(instance, solver, 4) == hash;
+            }
+        }
+    }
+
+    /** Descent of parallel steps from the SPT solution, returning the hash of the local optimum. */
+    private static long descend(Instance instance, DescentSolver solver, int threads) {
+        GloutonSolver glouton = new GloutonSolver();
+        glouton.setPriority("SPT");
+        ResourceOrder order = new ResourceOrder(glouton.solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+
+        Neighbourhood neighbourhood = new Neighbourhood(instance, Neighbourhood.Type.N6);
+        int[] makespans = new int[neighbourhood.capacity()];
+        long[] hashes = new long[neighbourhood.capacity()];
+        MakespanCache cache = new MakespanCache(1 << 16);
+        ResourceOrder[] scratch = new ResourceOrder[threads];
+        for (int i = 0; i < threads; i++) {
+            scratch[i] = order.copy();
+            scratch[i].updateHeadsAndTails();
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Budget.Checker check = Budget.unlimited().checker();
+            int steps = 0;
+            while (true) {
+                int next = solver.parallelStep(order, makespan, neighbourhood, makespans, hashes, cache, new SolverMetrics(), check, pool, scratch);
+                if (next >= makespan) {
+                    break;
+                }
+                makespan = next;
+                steps++;
+            }
+            assert steps > 0;
+        } finally {
+            pool.shutdown();
+        }
+        return order.hash();
+    }
+}
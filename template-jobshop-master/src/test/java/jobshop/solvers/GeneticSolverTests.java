@@ -0,0 +1,45 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class GeneticSolverTests {
+
+    @Test
+    public void testSeed() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        int[] makespans = new int[2];
+        int[] budgeted = new int[2];
+        for (int run = 0; run < 2; run++) {
+            makespans[run] = solve(instance, Budget.unlimited());
+
+            // two epochs of 3 islands of 20 generations each: the iteration limit is reached in the middle of
+            // the third epoch, which is completed anyway
+            Budget budget = Budget.unlimited();
+            budget.setMaxIterations(2 * 3 * 20 + 7);
+            budgeted[run] = solve(instance, budget);
+        }
+        assert makespans[0] == makespans[1];
+        assert budgeted[0] == budgeted[1];
+    }
+
+    private static int solve(Instance instance, Budget budget) {
+        GeneticSolver solver = new GeneticSolver();
+        solver.setIslands(3);
+        solver.setPopulationSize(20);
+        solver.setEpochLength(20);
+        solver.setMaxEpochs(5);
+        solver.setSeed(7);
+        Result result = solver.solve(instance, budget, ImprovementListener.NONE);
+        assert result.schedule.isValid();
+        // the epochs or the iterations of the budget are spent
+        assert result.cause == Result.ExitCause.Timeout;
+        return result.schedule.makespan();
+    }
+}
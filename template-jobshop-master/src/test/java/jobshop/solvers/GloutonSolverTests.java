@@ -0,0 +1,92 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class GloutonSolverTests {
+
+    @Test
+    public void testEarliestStartRules() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+
+        Schedule spt = solve(instance, "SPT");
+        Schedule estSpt = solve(instance, "EST_SPT");
+        Schedule estLrpt = solve(instance, "EST_LRPT");
+        assert spt.isValid() && estSpt.isValid() && estLrpt.isValid();
+        assert !sameStartTimes(instance, spt, estSpt);
+
+        // the tasks with the earliest start time are scheduled first
+        assert sameStartTimes(instance, estSpt, earliestStartFirst(instance, false));
+        assert sameStartTimes(instance, estLrpt, earliestStartFirst(instance, true));
+    }
+
+    @Test
+    public void testRuleNames() {
+        GloutonSolver solver = new GloutonSolver();
+        solver.setPriorityRule(PriorityRule.EST_LRPT);
+        assert "EST_LRPT".equals(solver.getPriority());
+        solver.setPriorityRule((earliestStart, duration, remainingWork) -> duration);
+        assert solver.getPriority() == null;
+    }
+
+    private static Schedule solve(Instance instance, String rule) {
+        GloutonSolver solver = new GloutonSolver();
+        solver.setPriority(rule);
+        return solver.solve(instance, Long.MAX_VALUE).schedule;
+    }
+
+    /**
+     * Straightforward greedy: the next task of the job that can start the earliest is scheduled first, ties being
+     * broken by shortest duration (or longest remaining work), then by job number.
+     */
+    private static Schedule earliestStartFirst(Instance instance, boolean longestRemainingWork) {
+        int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        int[] nextTask = new int[instance.numJobs];
+        int[] jobTime = new int[instance.numJobs];
+        int[] machineTime = new int[instance.numMachines];
+        for (int scheduled = 0; scheduled < instance.numJobs * instance.numTasks; scheduled++) {
+            int best = -1;
+            long bestKey = Long.MAX_VALUE;
+            for (int j = 0; j < instance.numJobs; j++) {
+                int t = nextTask[j];
+                if (t == instance.numTasks) {
+                    continue;
+                }
+                int est = Math.max(jobTime[j], machineTime[instance.machine(j, t)]);
+                int tieBreak = instance.duration(j, t);
+                if (longestRemainingWork) {
+                    tieBreak = 0;
+                    for (int u = t; u < instance.numTasks; u++) {
+                        tieBreak -= instance.duration(j, u);
+                    }
+                }
+                long key = ((long) est << 32) + (tieBreak - (long) Integer.MIN_VALUE);
+                if (key < bestKey) {
+                    best = j;
+                    bestKey = key;
+                }
+            }
+            int t = nextTask[best]++;
+            int start = Math.max(jobTime[best], machineTime[instance.machine(best, t)]);
+            startTimes[best][t] = start;
+            jobTime[best] = start + instance.duration(best, t);
+            machineTime[instance.machine(best, t)] = jobTime[best];
+        }
+        return new Schedule(instance, startTimes);
+    }
+
+    private static boolean sameStartTimes(Instance instance, Schedule s1, Schedule s2) {
+        for (int j = 0; j < instance.numJobs; j++) {
+            for (int t = 0; t < instance.numTasks; t++) {
+                if (s1.startTime(j, t) != s2.startTime(j, t)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
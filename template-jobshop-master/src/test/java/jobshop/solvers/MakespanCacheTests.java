@@ -0,0 +1,57 @@
+package jobshop.solvers;
+
+import org.junit.Test;
+
+public class MakespanCacheTests {
+
+    @Test
+    public void testPutGet() {
+        MakespanCache cache = new MakespanCache(8);
+        assert cache.get(42) == MakespanCache.NOT_FOUND;
+        // two buckets of 4 slots : the 8 hashes fit
+        for (long hash = 0; hash < 8; hash++) {
+            cache.put(hash, 100 + (int) hash);
+        }
+        for (long hash = 0; hash < 8; hash++) {
+            assert cache.get(hash) == 100 + hash;
+        }
+        cache.put(3, 50);
+        assert cache.get(3) == 50;
+        assert cache.get(8) == MakespanCache.NOT_FOUND;
+    }
+
+    @Test
+    public void testEviction() {
+        MakespanCache cache = new MakespanCache(8);
+        // even hashes all go to the first of the two buckets
+        cache.put(0, 10);
+        cache.put(2, 12);
+        cache.put(4, 14);
+        cache.put(6, 16);
+        // putting again an entry makes it the most recent one
+        cache.put(0, 11);
+        // the bucket is full: the oldest entry (2) is evicted, the other bucket being left alone
+        cache.put(1, 1);
+        cache.put(8, 18);
+        assert cache.get(2) == MakespanCache.NOT_FOUND;
+        assert cache.get(0) == 11;
+        assert cache.get(4) == 14 && cache.get(6) == 16 && cache.get(8) == 18;
+        assert cache.get(1) == 1;
+        cache.put(10, 20);
+        assert cache.get(4) == MakespanCache.NOT_FOUND;
+    }
+
+    @Test
+    public void testClear() {
+        MakespanCache cache = new MakespanCache(8);
+        for (long hash = 0; hash < 8; hash++) {
+            cache.put(hash, 100);
+        }
+        cache.clear();
+        for (long hash = 0; hash < 8; hash++) {
+            assert cache.get(hash) == MakespanCache.NOT_FOUND;
+        }
+        cache.put(5, 105);
+        assert cache.get(5) == 105;
+    }
+}
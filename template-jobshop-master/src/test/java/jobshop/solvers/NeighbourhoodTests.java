@@ -0,0 +1,108 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Schedule;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class NeighbourhoodTests {
+
+    @Test
+    public void testMoves() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+
+        Neighbourhood n1 = new Neighbourhood(instance, Neighbourhood.Type.N1);
+        Neighbourhood n5 = new Neighbourhood(instance, Neighbourhood.Type.N5);
+        Neighbourhood n6 = new Neighbourhood(instance, Neighbourhood.Type.N6);
+        n1.generate(order, makespan);
+        n5.generate(order, makespan);
+        n6.generate(order, makespan);
+        assert n5.size() > 0;
+
+        // N1 swaps tasks of a critical path, between which there is no idle time
+        assert n1.size() >= n5.size();
+        for (int k = 0; k < n1.size(); k++) {
+            assert n1.isSwap(k);
+            int u = order.taskId(n1.machine(k), n1.from(k));
+            int v = order.taskId(n1.machine(k), n1.to(k));
+            assert order.head(u) + instance.duration(u) + order.tail(u) == makespan;
+            assert order.head(u) + instance.duration(u) == order.head(v);
+            assert order.head(v) + instance.duration(v) + order.tail(v) == makespan;
+        }
+
+        // N5 swaps are critical swaps, which N6 moves include
+        for (int k = 0; k < n5.size(); k++) {
+            assert n5.isSwap(k);
+            assert contains(n1, n5.machine(k), Math.min(n5.from(k), n5.to(k)), Math.max(n5.from(k), n5.to(k)));
+            assert contains(n6, n5.machine(k), n5.from(k), n5.to(k)) || contains(n6, n5.machine(k), n5.to(k), n5.from(k));
+        }
+
+        // no N6 move creates a cycle
+        Schedule schedule = order.toSchedule();
+        assert n6.size() > n5.size();
+        for (int k = 0; k < n6.size(); k++) {
+            ResourceOrder neighbour = new ResourceOrder(schedule);
+            insert(neighbour.tasksByMachine[n6.machine(k)], n6.from(k), n6.to(k));
+            assert neighbour.updateHeadsAndTails() != -1;
+        }
+    }
+
+    @Test
+    public void testMoveEvaluation() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, Long.MAX_VALUE).schedule);
+        int makespan = order.updateHeadsAndTails();
+        Neighbourhood n6 = new Neighbourhood(instance, Neighbourhood.Type.N6);
+        n6.generate(order, makespan);
+
+        long hash = order.hash();
+        for (int k = 0; k < n6.size(); k++) {
+            int machine = n6.machine(k);
+            int from = n6.from(k);
+            int to = n6.to(k);
+            int estimate = order.estimateMove(machine, from, to);
+            if (n6.isSwap(k)) {
+                // critical swaps are estimated with a lower bound of their makespan
+                assert estimate == order.estimateSwap(machine, from, to);
+            }
+            long expected = order.hashAfterMove(machine, from, to);
+
+            ResourceOrder neighbour = order.copy();
+            neighbour.move(machine, from, to);
+            assert neighbour.hash() == expected;
+            assert neighbour.rehash() == expected;
+            int exact = neighbour.updateHeadsAndTails();
+            assert !n6.isSwap(k) || estimate <= exact;
+
+            // moving it back gives the order again
+            neighbour.move(machine, to, from);
+            assert neighbour.hash() == hash;
+            assert neighbour.updateHeadsAndTails() == makespan;
+        }
+    }
+
+    private static boolean contains(Neighbourhood neighbourhood, int machine, int from, int to) {
+        for (int k = 0; k < neighbourhood.size(); k++) {
+            if (neighbourhood.machine(k) == machine && neighbourhood.from(k) == from && neighbourhood.to(k) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void insert(Task[] tasks, int from, int to) {
+        Task task = tasks[from];
+        if (from < to) {
+            System.arraycopy(tasks, from + 1, tasks, from, to - from);
+        } else {
+            System.arraycopy(tasks, to, tasks, to + 1, from - to);
+        }
+        tasks[to] = task;
+    }
+}
@@ -0,0 +1,33 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class PortfolioSolverTests {
+
+    @Test
+    public void testIterationBudget() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        Budget budget = Budget.unlimited();
+        budget.setMaxIterations(50);
+
+        PortfolioSolver solver = new PortfolioSolver();
+        solver.setThreads(3);
+        PortfolioSolver.PortfolioResult result = solver.solve(instance, budget, ImprovementListener.NONE);
+
+        assert result.schedule.isValid();
+        assert Arrays.asList(solver.priorities).contains(result.winner);
+        // every rule is run, followed by a descent that can only improve it
+        for (String rule : solver.priorities) {
+            GloutonSolver glouton = new GloutonSolver();
+            glouton.setPriority(rule);
+            assert result.schedule.makespan() <= glouton.solve(instance, Long.MAX_VALUE).schedule.makespan();
+        }
+    }
+}
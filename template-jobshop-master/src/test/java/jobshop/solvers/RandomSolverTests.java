@@ -0,0 +1,77 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.LowerBound;
+import jobshop.Result;
+import jobshop.Schedule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class RandomSolverTests {
+
+    @Test
+    public void testIterationBudget() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Budget budget = Budget.unlimited();
+        budget.setMaxIterations(500);
+
+        Result result = new RandomSolver().solve(instance, budget, ImprovementListener.NONE);
+
+        assert result.schedule.isValid();
+        assert result.cause == Result.ExitCause.Timeout;
+        assert budget.isExhausted();
+    }
+
+    @Test
+    public void testSeed() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la21"));
+        Schedule[] schedules = new Schedule[2];
+        for(int run = 0 ; run < 2 ; run++) {
+            RandomSolver solver = new RandomSolver();
+            solver.setThreads(4);
+            solver.setSeed(42);
+            solver.setSamplesPerThread(300);
+            Result result = solver.solve(instance, Budget.unlimited(), ImprovementListener.NONE);
+            assert result.schedule.isValid();
+            // all samples drawn: the budget of the solver is spent
+            assert result.cause == Result.ExitCause.Timeout;
+            schedules[run] = result.schedule;
+        }
+        // the same seed and number of samples per thread give the same solution, whatever the timing of the threads
+        assert sameStartTimes(instance, schedules[0], schedules[1]);
+    }
+
+    @Test
+    public void testOptimalRound() throws IOException {
+        // random samples reach the lower bound of la05 after a few thousand rounds
+        Instance instance = Instance.fromFile(Paths.get("instances/la05"));
+        Schedule first = null;
+        for(int run = 0 ; run < 5 ; run++) {
+            RandomSolver solver = new RandomSolver();
+            solver.setThreads(8);
+            solver.setSeed(7);
+            solver.setSamplesPerThread(200_000);
+            Result result = solver.solve(instance, Budget.unlimited(), ImprovementListener.NONE);
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.makespan() == LowerBound.of(instance);
+            // the other threads finish the round of the first optimal solution: the same one is always returned
+            if(first == null)
+                first = result.schedule;
+            assert sameStartTimes(instance, first, result.schedule);
+        }
+    }
+
+    private static boolean sameStartTimes(Instance instance, Schedule s1, Schedule s2) {
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                if(s1.startTime(j, t) != s2.startTime(j, t))
+                    return false;
+            }
+        }
+        return true;
+    }
+}
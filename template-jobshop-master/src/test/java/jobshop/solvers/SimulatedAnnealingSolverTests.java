@@ -0,0 +1,32 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class SimulatedAnnealingSolverTests {
+
+    @Test
+    public void testIterationBudget() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Budget budget = Budget.unlimited();
+        budget.setMaxIterations(5000);
+        SimulatedAnnealingSolver solver = new SimulatedAnnealingSolver();
+        solver.setGloutonPriority("EST_LRPT");
+        Result result = solver.solve(instance, budget, ImprovementListener.NONE);
+
+        assert result.schedule.isValid();
+        assert result.cause == Result.ExitCause.Timeout;
+        assert budget.isExhausted();
+
+        // the best solution is kept, whatever the moves accepted after it
+        GloutonSolver glouton = new GloutonSolver();
+        glouton.setPriority("EST_LRPT");
+        assert result.schedule.makespan() <= glouton.solve(instance, Long.MAX_VALUE).schedule.makespan();
+    }
+}
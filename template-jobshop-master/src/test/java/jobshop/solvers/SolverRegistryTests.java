@@ -0,0 +1,72 @@
+package jobshop.solvers;
+
+import jobshop.Solver;
+import org.junit.Test;
+
+public class SolverRegistryTests {
+
+    @Test
+    public void testSpecs() {
+        SolverRegistry registry = SolverRegistry.standard();
+
+        DescentSolver descent = (DescentSolver) registry.create("descent:rule=EST_LRPT,threads=8,strategy=FIRST_IMPROVEMENT");
+        assert descent.gloutonPriority.equals("EST_LRPT");
+        assert descent.threads == 8;
+        assert descent.strategy == DescentSolver.Strategy.FIRST_IMPROVEMENT;
+
+        // a new solver for each spec
+        assert registry.create("descent") != registry.create("descent");
+        assert ((DescentSolver) registry.create("descent")).threads == 1;
+
+        // aliases, whose parameters can be overridden
+        TabooSolver taboo = (TabooSolver) registry.create("EST_LRPT_Taboo:tenure=5");
+        assert taboo.gloutonPriority.equals("EST_LRPT");
+        assert taboo.tenure == 5;
+        Solver glouton = registry.create("LRPT");
+        assert ((GloutonSolver) glouton).getPriority().equals("LRPT");
+
+        PortfolioSolver portfolio = (PortfolioSolver) registry.create("portfolio:rules=SPT+EST_LRPT");
+        assert portfolio.priorities.length == 2;
+
+        for (String invalid : new String[]{"unknown", "descent:threads=many", "descent:rule=NONE", "taboo:size=3", "random:seed"}) {
+            try {
+                registry.create(invalid);
+                assert false : invalid;
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testRanges() {
+        SolverRegistry registry = SolverRegistry.standard();
+
+        // values that would only make the solver fail once running are rejected with the name of the parameter
+        String[][] invalid = {
+                {"random:threads=0", "threads"},
+                {"random:samplesPerThread=0", "samplesPerThread"},
+                {"descent:threads=-1", "threads"},
+                {"portfolio:threads=0", "threads"},
+                {"genetic:islands=0", "islands"},
+                {"genetic:populationSize=0", "populationSize"},
+                {"genetic:populationSize=4,migrants=5", "migrants"},
+                {"genetic:epochLength=0", "epochLength"},
+                {"branch_and_bound:threads=0", "threads"},
+                {"taboo:tenure=-1", "tenure"},
+        };
+        for (String[] spec : invalid) {
+            try {
+                registry.create(spec[0]);
+                assert false : spec[0];
+            } catch (IllegalArgumentException e) {
+                assert e.getMessage().contains("parameter " + spec[1] + " ") : e.getMessage();
+            }
+        }
+
+        // the smallest valid values
+        assert ((RandomSolver) registry.create("random:threads=1")).threads == 1;
+        assert ((GeneticSolver) registry.create("genetic:islands=1,populationSize=1,migrants=1")).islands == 1;
+        assert ((BranchAndBoundSolver) registry.create("branch_and_bound:threads=1,parallelDepth=0")).threads == 1;
+    }
+}
@@ -0,0 +1,45 @@
+package jobshop.solvers;
+
+import jobshop.Budget;
+import jobshop.ImprovementListener;
+import jobshop.Instance;
+import jobshop.Result;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class TabooSolverTests {
+
+    @Test
+    public void testMaxIter() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+
+        TabooSolver solver = new TabooSolver();
+        solver.setMaxIter(100);
+        Result result = solver.solve(instance, Budget.unlimited(), ImprovementListener.NONE);
+
+        // running out of iterations is running out of budget
+        assert result.cause == Result.ExitCause.Timeout;
+        assert result.schedule.isValid();
+        assert result.metrics.moves.sum() == 100;
+    }
+
+    @Test
+    public void testFixedIterations() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        // a search of a given number of iterations is deterministic: these makespans only change with the search
+        // itself (neighbourhood, taboo list, aspiration or cache of visited solutions)
+        int[][] expected = {{300, 1018}, {2000, 972}};
+        for (int[] run : expected) {
+            for (int cacheSize : new int[]{1 << 16, 4}) {
+                TabooSolver solver = new TabooSolver();
+                solver.setMaxIter(run[0]);
+                solver.setCacheSize(cacheSize);
+                Result result = solver.solve(instance, Budget.unlimited(), ImprovementListener.NONE);
+                assert result.schedule.isValid();
+                assert result.schedule.makespan() == run[1];
+            }
+        }
+    }
+}